@@ -18,16 +18,26 @@ package fi.jgke.miniplc;
 import fi.jgke.miniplc.exception.RuntimeException;
 import fi.jgke.miniplc.interpreter.Executor;
 import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.Program;
+import fi.jgke.miniplc.jvm.ClassCompiler;
+import fi.jgke.miniplc.jvm.JarWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
 public class Miniplc {
 
     public static int app(String[] args, PrintStream out, PrintStream err) throws IOException {
+        /* a single argument is a script, even when it is named compile */
+        if (args.length > 1 && args[0].equals("compile"))
+            return compile(args, err);
         if (args.length != 1) {
             err.println("Invalid number of arguments: expected one");
             return -1;
@@ -39,13 +49,44 @@ public class Miniplc {
             return -1;
         }
 
-        try {
-            String content = new String(Files.readAllBytes(Paths.get(args[0])));
-            Executor executor = new Executor(content);
-            executor.execute(new InputOutput(out));
+        try (FileChannel channel = FileChannel.open(Paths.get(args[0]))) {
+            Executor.execute(channel, new InputOutput(out));
         } catch (RuntimeException e) {
             err.println(e.getMessage());
             return 1;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return 0;
+    }
+
+    /**
+     * compile script.mpl [script.jar]: compile a script into a jar which runs
+     * it with java -jar, without lexing or parsing anything.
+     */
+    private static int compile(String[] args, PrintStream err) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            err.println("Invalid number of arguments: expected a file and optionally a jar to compile it into");
+            return -1;
+        }
+
+        File file = new File(args[1]);
+        if (!file.exists()) {
+            err.println("Invalid argument: file not found");
+            return -1;
+        }
+
+        String jar = args.length == 3 ? args[2] : args[1].replaceFirst("(\\.mpl)?$", ".jar");
+        byte[] compiled;
+        try {
+            Program program = Executor.compile(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            compiled = ClassCompiler.compileMain(program.getStatements(), program.getSlotCount());
+        } catch (RuntimeException | IllegalArgumentException e) {
+            err.println(e.getMessage());
+            return 1;
+        }
+        try (OutputStream output = Files.newOutputStream(Paths.get(jar))) {
+            JarWriter.write(compiled, output);
         }
         return 0;
     }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.exception.AssertionFailureException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * assert(condition)
+ */
+public class Assert extends Statement {
+    private final Expression condition;
+
+    Assert(Token assertToken, Expression condition) {
+        super(assertToken);
+        this.condition = condition;
+    }
+
+    public Expression getCondition() {
+        return condition;
+    }
+
+    @Override
+    public <R> R accept(Visitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public void execute(Context context) {
+        if (!condition.evaluateBool(context)) {
+            throw new AssertionFailureException(getLineNumber());
+        }
+    }
+}
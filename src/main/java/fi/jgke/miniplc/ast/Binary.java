@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.tokenizer.Token;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+
+/**
+ * left op right, positioned at the operator. Both operands have the same
+ * type, which the {@link TypeChecker} has made sure supports the operator.
+ */
+public class Binary extends Expression {
+    private final Expression left;
+    private final Expression right;
+    private final TokenValue operator;
+    private final boolean rightFirst;
+
+    Binary(Expression left, Token operator, Expression right) {
+        super(operator);
+        this.left = left;
+        this.right = right;
+        this.operator = operator.getValue();
+        this.rightFirst = rightFirst();
+    }
+
+    public Expression getLeft() {
+        return left;
+    }
+
+    public Token getOperator() {
+        return getToken();
+    }
+
+    public Expression getRight() {
+        return right;
+    }
+
+    @Override
+    public <R> R accept(Visitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    /* The old interpreter evaluated both operands before reading either,
+     * so an uninitialized variable on the left was only reported after any
+     * error in evaluating the right. Expressions have no side effects, so
+     * evaluating the right first gives the same errors. */
+    private boolean rightFirst() {
+        return left instanceof VarRef && !(right instanceof VarRef) && !(right instanceof Literal);
+    }
+
+    /**
+     * Whether the right operand is evaluated before the left one, which
+     * keeps the order of errors the same as reading both operands only
+     * after evaluating them.
+     */
+    public boolean isRightFirst() {
+        return rightFirst;
+    }
+
+    @Override
+    public int evaluateInt(Context context) {
+        int a, b;
+        if (rightFirst) {
+            b = right.evaluateInt(context);
+            a = left.evaluateInt(context);
+        } else {
+            a = left.evaluateInt(context);
+            b = right.evaluateInt(context);
+        }
+        switch (operator) {
+            case PLUS:
+                return a + b;
+            case MINUS:
+                return a - b;
+            case TIMES:
+                return a * b;
+            case DIVIDE:
+                return a / b;
+            default:
+                throw new IllegalStateException("Operator was not type checked: " + getToken());
+        }
+    }
+
+    @Override
+    public String evaluateString(Context context) {
+        String a, b;
+        if (rightFirst) {
+            b = right.evaluateString(context);
+            a = left.evaluateString(context);
+        } else {
+            a = left.evaluateString(context);
+            b = right.evaluateString(context);
+        }
+        return a + b;
+    }
+
+    @Override
+    public boolean evaluateBool(Context context) {
+        switch (left.getType()) {
+            case INT: {
+                int a, b;
+                if (rightFirst) {
+                    b = right.evaluateInt(context);
+                    a = left.evaluateInt(context);
+                } else {
+                    a = left.evaluateInt(context);
+                    b = right.evaluateInt(context);
+                }
+                return operator == TokenValue.LESS_THAN ? a < b : a == b;
+            }
+            case STRING: {
+                String a, b;
+                if (rightFirst) {
+                    b = right.evaluateString(context);
+                    a = left.evaluateString(context);
+                } else {
+                    a = left.evaluateString(context);
+                    b = right.evaluateString(context);
+                }
+                return a.equals(b);
+            }
+            default: {
+                boolean a, b;
+                if (rightFirst) {
+                    b = right.evaluateBool(context);
+                    a = left.evaluateBool(context);
+                } else {
+                    a = left.evaluateBool(context);
+                    b = right.evaluateBool(context);
+                }
+                /* both operands are always evaluated */
+                return operator == TokenValue.AND ? a & b : a == b;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list of statements, such as a program or the body of a loop.
+ */
+public class Block implements Executable {
+    private final Statement[] statements;
+
+    Block(List<Statement> statements) {
+        this.statements = statements.toArray(new Statement[0]);
+    }
+
+    public List<Statement> getStatements() {
+        return Collections.unmodifiableList(Arrays.asList(statements));
+    }
+
+    @Override
+    public void execute(Context context) {
+        for (Statement statement : statements)
+            statement.execute(context);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.Token;
+
+public abstract class Expression extends Node {
+    private VariableType type;
+
+    Expression(Token token) {
+        super(token);
+    }
+
+    /**
+     * The type of the value, once the expression has been checked by a
+     * {@link TypeChecker}.
+     */
+    public VariableType getType() {
+        return type;
+    }
+
+    void setType(VariableType type) {
+        this.type = type;
+    }
+
+    /**
+     * Evaluate the expression into a variable, which must have been checked
+     * by a {@link TypeChecker}. Executing a tree evaluates expressions into
+     * plain values with the methods below, which allocate nothing for
+     * integers and booleans.
+     */
+    public Variable evaluate(Context context) {
+        switch (type) {
+            case INT:
+                return Variable.ofInt(evaluateInt(context));
+            case BOOL:
+                return Variable.ofBool(evaluateBool(context));
+            default:
+                return Variable.ofString(evaluateString(context));
+        }
+    }
+
+    public int evaluateInt(Context context) {
+        throw new IllegalStateException("Not an integer expression: " + getToken());
+    }
+
+    public boolean evaluateBool(Context context) {
+        throw new IllegalStateException("Not a boolean expression: " + getToken());
+    }
+
+    public String evaluateString(Context context) {
+        throw new IllegalStateException("Not a string expression: " + getToken());
+    }
+}
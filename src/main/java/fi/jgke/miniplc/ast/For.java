@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * for x in start..end do body end for
+ */
+public class For extends Statement {
+    private final Token identifier;
+    private final Token in;
+    private final Expression start;
+    private final Token range;
+    private final Expression end;
+    private final Block body;
+    private int slot;
+
+    For(Token forToken, Token identifier, Token in, Expression start, Token range, Expression end, Block body) {
+        super(forToken);
+        this.identifier = identifier;
+        this.in = in;
+        this.start = start;
+        this.range = range;
+        this.end = end;
+        this.body = body;
+    }
+
+    public Token getIdentifier() {
+        return identifier;
+    }
+
+    public String getName() {
+        return identifier.getString();
+    }
+
+    /**
+     * The token "in", which is where the loop variable gets its values.
+     */
+    public Token getIn() {
+        return in;
+    }
+
+    public Expression getStart() {
+        return start;
+    }
+
+    /**
+     * The token "..", which is where a wrongly typed end is reported.
+     */
+    public Token getRange() {
+        return range;
+    }
+
+    public Expression getEnd() {
+        return end;
+    }
+
+    public Block getBody() {
+        return body;
+    }
+
+    /**
+     * The slot of the variable, once resolved by a {@link TypeChecker}.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * The bound the loop variable stays below, for a loop to the given end.
+     * The loop runs up to end + 1 exclusive, so a loop to the largest
+     * integer wraps around and does not run at all. Once the loop is done,
+     * the variable is left at this bound.
+     */
+    public static int exclusiveEnd(int end) {
+        return end + 1;
+    }
+
+    @Override
+    public <R> R accept(Visitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public void execute(Context context) {
+        int first = start.evaluateInt(context);
+        int last = exclusiveEnd(end.evaluateInt(context));
+
+        for (int i = first; i < last; i++) {
+            context.setInt(slot, i);
+            body.execute(context);
+        }
+
+        context.setInt(slot, last);
+    }
+}
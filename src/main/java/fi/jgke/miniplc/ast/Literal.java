@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * An integer, string or boolean constant. Values are immutable, so the
+ * same one is returned on every evaluation.
+ */
+public class Literal extends Expression {
+    private final Variable value;
+    private final int intValue;
+    private final boolean boolValue;
+    private final String stringValue;
+
+    Literal(Token constant) {
+        super(constant);
+        Object content = constant.getContent();
+        VariableType type;
+        if (content instanceof Integer)
+            type = VariableType.INT;
+        else if (content instanceof String)
+            type = VariableType.STRING;
+        else
+            type = VariableType.BOOL;
+        this.value = new Variable(type, content);
+        this.intValue = content instanceof Integer ? (Integer) content : 0;
+        this.boolValue = content instanceof Boolean && (Boolean) content;
+        this.stringValue = content instanceof String ? (String) content : null;
+    }
+
+    public Variable getValue() {
+        return value;
+    }
+
+    @Override
+    public <R> R accept(Visitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public Variable evaluate(Context context) {
+        return value;
+    }
+
+    @Override
+    public int evaluateInt(Context context) {
+        return intValue;
+    }
+
+    @Override
+    public boolean evaluateBool(Context context) {
+        return boolValue;
+    }
+
+    @Override
+    public String evaluateString(Context context) {
+        return stringValue;
+    }
+}
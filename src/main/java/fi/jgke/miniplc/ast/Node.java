@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * A node of the syntax tree. The position of a node is that of the token it
+ * was parsed from, which is read from the token every time so that tokens
+ * which move with the source keep their nodes up to date.
+ */
+public abstract class Node {
+    private final Token token;
+
+    Node(Token token) {
+        this.token = token;
+    }
+
+    public Token getToken() {
+        return token;
+    }
+
+    public int getLineNumber() {
+        return token.getLineNumber();
+    }
+
+    public int getColumn() {
+        return token.getColumn();
+    }
+
+    public abstract <R> R accept(Visitor<R> visitor);
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.builder.RuleNotMatchedException;
+import fi.jgke.miniplc.exception.UnexpectedTokenException;
+import fi.jgke.miniplc.tokenizer.Token;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser from tokens to a syntax tree.
+ *
+ * The parser follows the grammar in {@link fi.jgke.miniplc.builder.Syntax}
+ * with one token of lookahead, and fails with the same errors at the same
+ * tokens: a token which cannot start any alternative is a
+ * {@link RuleNotMatchedException} and a wrong terminal is an
+ * {@link UnexpectedTokenException}. Statement lists are parsed in a loop, so
+ * long programs do not need a deep stack.
+ */
+public class Parser {
+    private final TokenQueue tokens;
+
+    public Parser(TokenQueue tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Whether a token of the given kind can start a statement.
+     */
+    public static boolean startsStatement(TokenValue value) {
+        switch (value) {
+            case VAR:
+            case IDENTIFIER:
+            case PRINT:
+            case READ:
+            case ASSERT:
+            case FOR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean startsOperand(TokenValue value) {
+        switch (value) {
+            case INT_CONST:
+            case STRING_CONST:
+            case BOOL_CONST:
+            case IDENTIFIER:
+            case OPEN_BRACE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isOperator(TokenValue value) {
+        switch (value) {
+            case PLUS:
+            case MINUS:
+            case TIMES:
+            case DIVIDE:
+            case LESS_THAN:
+            case EQUALS:
+            case AND:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private Token expect(TokenValue type) {
+        return tokens.getExpectedToken(type);
+    }
+
+    private RuleNotMatchedException notMatched() {
+        return new RuleNotMatchedException(tokens.element().getLineNumber());
+    }
+
+    /**
+     * <program> ::= <statement> ";" <statements>
+     *
+     * The program ends at the first token which cannot start a statement,
+     * which {@link #parseEnd()} checks to be the end of the input.
+     */
+    public Block parseProgram() {
+        List<Statement> statements = new ArrayList<>();
+        statements.add(parseStatement());
+        expect(TokenValue.SEMICOLON);
+        parseStatements(statements);
+        return new Block(statements);
+    }
+
+    public void parseEnd() {
+        expect(TokenValue.EOS);
+    }
+
+    /* <statements> ::= <statement> ";" <statements> | nothing */
+    private void parseStatements(List<Statement> statements) {
+        while (startsStatement(tokens.peekValue())) {
+            statements.add(parseStatement());
+            expect(TokenValue.SEMICOLON);
+        }
+    }
+
+    /**
+     * A single statement without its semicolon.
+     */
+    public Statement parseStatement() {
+        switch (tokens.peekValue()) {
+            case VAR:
+                return parseVarDecl();
+            case IDENTIFIER: {
+                Token identifier = tokens.remove();
+                expect(TokenValue.ASSIGN);
+                return new Assign(identifier, parseExpression());
+            }
+            case PRINT: {
+                Token print = tokens.remove();
+                return new Print(print, parseExpression());
+            }
+            case READ: {
+                Token read = tokens.remove();
+                return new Read(read, expect(TokenValue.IDENTIFIER));
+            }
+            case ASSERT: {
+                Token assertToken = tokens.remove();
+                expect(TokenValue.OPEN_BRACE);
+                Expression condition = parseExpression();
+                expect(TokenValue.CLOSE_BRACE);
+                return new Assert(assertToken, condition);
+            }
+            case FOR:
+                return parseFor();
+            default:
+                throw notMatched();
+        }
+    }
+
+    /* "var" <identifier> ":" <type> [":=" <expression>] */
+    private Statement parseVarDecl() {
+        Token var = tokens.remove();
+        Token identifier = expect(TokenValue.IDENTIFIER);
+        expect(TokenValue.COLON);
+        Token type = expect(TokenValue.TYPE);
+        Expression value = null;
+        if (tokens.peekValue() == TokenValue.ASSIGN) {
+            tokens.remove();
+            value = parseExpression();
+        }
+        return new VarDecl(var, identifier, type.getVariableType(), value);
+    }
+
+    /* "for" <identifier> "in" <expression> ".." <expression> "do" <statements> "end" "for" */
+    private Statement parseFor() {
+        Token forToken = tokens.remove();
+        Token identifier = expect(TokenValue.IDENTIFIER);
+        Token in = expect(TokenValue.IN);
+        Expression start = parseExpression();
+        Token range = expect(TokenValue.RANGE);
+        Expression end = parseExpression();
+        expect(TokenValue.DO);
+        List<Statement> body = new ArrayList<>();
+        parseStatements(body);
+        expect(TokenValue.END);
+        expect(TokenValue.FOR);
+        return new For(forToken, identifier, in, start, range, end, new Block(body));
+    }
+
+    /**
+     * <expression> ::= "!" <operand> | <operand> [<operator> <operand>]
+     */
+    public Expression parseExpression() {
+        TokenValue next = tokens.peekValue();
+        if (next == TokenValue.NOT) {
+            Token not = tokens.remove();
+            return new Unary(not, parseOperand());
+        }
+        if (!startsOperand(next))
+            throw notMatched();
+        Expression left = parseOperand();
+        if (!isOperator(tokens.peekValue()))
+            return left;
+        Token operator = tokens.remove();
+        return new Binary(left, operator, parseOperand());
+    }
+
+    /* <constant> | <identifier> | "(" <expression> ")" */
+    private Expression parseOperand() {
+        switch (tokens.peekValue()) {
+            case INT_CONST:
+            case STRING_CONST:
+            case BOOL_CONST:
+                return new Literal(tokens.remove());
+            case IDENTIFIER:
+                return new VarRef(tokens.remove());
+            case OPEN_BRACE: {
+                tokens.remove();
+                Expression expression = parseExpression();
+                expect(TokenValue.CLOSE_BRACE);
+                return expression;
+            }
+            default:
+                throw notMatched();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * print value
+ */
+public class Print extends Statement {
+    private final Expression value;
+
+    Print(Token print, Expression value) {
+        super(print);
+        this.value = value;
+    }
+
+    public Expression getValue() {
+        return value;
+    }
+
+    @Override
+    public <R> R accept(Visitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public void execute(Context context) {
+        switch (value.getType()) {
+            case INT:
+                context.print(value.evaluateInt(context));
+                break;
+            case BOOL:
+                context.print(value.evaluateBool(context));
+                break;
+            default:
+                context.print(value.evaluateString(context));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Operations;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * read x
+ */
+public class Read extends Statement {
+    private final Token identifier;
+    private VariableType type;
+    private int slot;
+
+    Read(Token read, Token identifier) {
+        super(read);
+        this.identifier = identifier;
+    }
+
+    public Token getIdentifier() {
+        return identifier;
+    }
+
+    public String getName() {
+        return identifier.getString();
+    }
+
+    /**
+     * The type of the variable, once checked by a {@link TypeChecker}.
+     */
+    public VariableType getType() {
+        return type;
+    }
+
+    void setType(VariableType type) {
+        this.type = type;
+    }
+
+    /**
+     * The slot of the variable, once resolved by a {@link TypeChecker}.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    public <R> R accept(Visitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public void execute(Context context) {
+        Variable variable = Operations.read(context, type, getName(), getLineNumber());
+        if (type == VariableType.INT)
+            context.setInt(slot, (Integer) variable.getValue());
+        else
+            context.setString(slot, (String) variable.getValue());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.exception.UndefinedVariableException;
+import fi.jgke.miniplc.exception.VariableAlreadyDefinedException;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lexical scopes of a program, which give each declared variable a
+ * slot in the one frame a run of the program keeps its variables in.
+ *
+ * A slot belongs to its variable until the end of the scope it was
+ * declared in, after which later declarations reuse it. A variable declared
+ * in a loop body gets the same slot on every iteration, which is safe as
+ * the declaration runs before any use of it in the body.
+ */
+public class Resolver {
+    /* a declared variable and its slot */
+    static class Declaration {
+        final String name;
+        final int lineNumber;
+        final VariableType type;
+        final int slot;
+
+        Declaration(String name, int lineNumber, VariableType type, int slot) {
+            this.name = name;
+            this.lineNumber = lineNumber;
+            this.type = type;
+            this.slot = slot;
+        }
+    }
+
+    private final List<Map<String, Declaration>> scopes = new ArrayList<>();
+    private int nextSlot;
+    private int slotCount;
+
+    public Resolver() {
+        scopes.add(new HashMap<>());
+    }
+
+    void enterScope() {
+        scopes.add(new HashMap<>());
+    }
+
+    void exitScope() {
+        nextSlot -= scopes.remove(scopes.size() - 1).size();
+    }
+
+    Declaration declare(String name, int lineNumber, VariableType type) {
+        Map<String, Declaration> scope = scopes.get(scopes.size() - 1);
+        Declaration existing = scope.get(name);
+        if (existing != null) {
+            throw new VariableAlreadyDefinedException(new Variable(name, lineNumber, type),
+                    new Variable(name, existing.lineNumber, existing.type));
+        }
+        Declaration declaration = new Declaration(name, lineNumber, type, nextSlot++);
+        slotCount = Math.max(slotCount, nextSlot);
+        scope.put(name, declaration);
+        return declaration;
+    }
+
+    Declaration lookup(String name, int lineNumber) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Declaration declaration = scopes.get(i).get(name);
+            if (declaration != null)
+                return declaration;
+        }
+        throw new UndefinedVariableException(lineNumber, name);
+    }
+
+    /**
+     * The number of slots the frame of a run needs.
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+}
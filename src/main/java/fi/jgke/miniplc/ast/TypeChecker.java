@@ -0,0 +1,183 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.exception.OperationNotSupportedException;
+import fi.jgke.miniplc.exception.TypeException;
+import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * Static checks of a syntax tree, done before it is executed.
+ *
+ * Names are resolved to slots by a {@link Resolver} in the same pass, so
+ * errors are thrown in the order the statements come in. Scopes are
+ * lexical: a loop body is a scope of its own, and a variable is visible
+ * from its declaration to the end of its scope, which is the same at run
+ * time. So every variable has one type, and each error a
+ * statement would throw because of types or names is thrown here at the
+ * same line. The checker also throws errors in code which never runs,
+ * such as a loop body which is never entered. The type of every expression
+ * and the slot of every variable are recorded in the tree, so executing it
+ * needs no type checks or name lookups.
+ *
+ * Only errors which depend on values, such as reading an uninitialized
+ * variable or dividing by zero, are left for run time.
+ */
+public class TypeChecker implements Visitor<VariableType> {
+    private final Resolver resolver = new Resolver();
+
+    /**
+     * Check the statements in the outermost scope, after those checked so
+     * far.
+     */
+    public void check(Block block) {
+        for (Statement statement : block.getStatements())
+            statement.accept(this);
+    }
+
+    public void check(Statement statement) {
+        statement.accept(this);
+    }
+
+    /**
+     * The number of slots the variables of the checked statements need.
+     */
+    public int getSlotCount() {
+        return resolver.getSlotCount();
+    }
+
+    private static void expect(VariableType expected, VariableType actual, int lineNumber) {
+        if (expected != actual)
+            throw new TypeException(lineNumber, expected, actual);
+    }
+
+    @Override
+    public VariableType visit(VarDecl node) {
+        if (node.getValue() != null)
+            expect(node.getType(), node.getValue().accept(this), node.getLineNumber());
+
+        node.setSlot(resolver.declare(node.getName(), node.getLineNumber(), node.getType()).slot);
+        return null;
+    }
+
+    @Override
+    public VariableType visit(Assign node) {
+        Resolver.Declaration variable = resolver.lookup(node.getName(), node.getLineNumber());
+        expect(variable.type, node.getValue().accept(this), variable.lineNumber);
+        node.setSlot(variable.slot);
+        return null;
+    }
+
+    @Override
+    public VariableType visit(For node) {
+        expect(VariableType.INT, node.getStart().accept(this), node.getIn().getLineNumber());
+        expect(VariableType.INT, node.getEnd().accept(this), node.getRange().getLineNumber());
+        Resolver.Declaration variable = resolver.lookup(node.getName(), node.getIn().getLineNumber());
+        expect(VariableType.INT, variable.type, node.getIn().getLineNumber());
+        node.setSlot(variable.slot);
+
+        resolver.enterScope();
+        for (Statement statement : node.getBody().getStatements())
+            statement.accept(this);
+        resolver.exitScope();
+        return null;
+    }
+
+    @Override
+    public VariableType visit(Print node) {
+        node.getValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public VariableType visit(Read node) {
+        Resolver.Declaration variable = resolver.lookup(node.getName(), node.getLineNumber());
+        node.setType(variable.type);
+        node.setSlot(variable.slot);
+        return null;
+    }
+
+    @Override
+    public VariableType visit(Assert node) {
+        expect(VariableType.BOOL, node.getCondition().accept(this), node.getLineNumber());
+        return null;
+    }
+
+    @Override
+    public VariableType visit(Binary node) {
+        VariableType left = node.getLeft().accept(this);
+        VariableType right = node.getRight().accept(this);
+        Token operator = node.getOperator();
+        if (left != right)
+            throw new TypeException(operator.getLineNumber(), left, right);
+
+        VariableType type = resultType(left, operator);
+        node.setType(type);
+        return type;
+    }
+
+    private static VariableType resultType(VariableType operands, Token operator) {
+        switch (operator.getValue()) {
+            case PLUS:
+                if (operands == VariableType.INT || operands == VariableType.STRING)
+                    return operands;
+                break;
+            case MINUS:
+            case TIMES:
+            case DIVIDE:
+                if (operands == VariableType.INT)
+                    return VariableType.INT;
+                break;
+            case LESS_THAN:
+                if (operands == VariableType.INT)
+                    return VariableType.BOOL;
+                break;
+            case EQUALS:
+                return VariableType.BOOL;
+            case AND:
+                if (operands == VariableType.BOOL)
+                    return VariableType.BOOL;
+                break;
+        }
+        throw new OperationNotSupportedException(operands, operator);
+    }
+
+    @Override
+    public VariableType visit(Unary node) {
+        if (node.getOperand().accept(this) != VariableType.BOOL)
+            throw new OperationNotSupportedException(node.getOperator());
+        node.setType(VariableType.BOOL);
+        return VariableType.BOOL;
+    }
+
+    @Override
+    public VariableType visit(Literal node) {
+        VariableType type = node.getValue().getType();
+        node.setType(type);
+        return type;
+    }
+
+    @Override
+    public VariableType visit(VarRef node) {
+        Resolver.Declaration variable = resolver.lookup(node.getName(), node.getLineNumber());
+        node.setType(variable.type);
+        node.setSlot(variable.slot);
+        node.setDeclarationLine(variable.lineNumber);
+        return variable.type;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * var x : int [:= value]
+ */
+public class VarDecl extends Statement {
+    private final Token identifier;
+    private final VariableType type;
+    private final Expression value;
+    private int slot;
+
+    VarDecl(Token var, Token identifier, VariableType type, Expression value) {
+        super(var);
+        this.identifier = identifier;
+        this.type = type;
+        this.value = value;
+    }
+
+    public Token getIdentifier() {
+        return identifier;
+    }
+
+    public String getName() {
+        return identifier.getString();
+    }
+
+    public VariableType getType() {
+        return type;
+    }
+
+    /**
+     * The initial value, or null if the variable is left uninitialized.
+     */
+    public Expression getValue() {
+        return value;
+    }
+
+    /**
+     * The slot of the variable, once resolved by a {@link TypeChecker}.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    public <R> R accept(Visitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public void execute(Context context) {
+        if (value == null) {
+            context.unset(slot);
+            return;
+        }
+        switch (type) {
+            case INT:
+                context.setInt(slot, value.evaluateInt(context));
+                break;
+            case BOOL:
+                context.setBool(slot, value.evaluateBool(context));
+                break;
+            default:
+                context.setString(slot, value.evaluateString(context));
+        }
+    }
+}
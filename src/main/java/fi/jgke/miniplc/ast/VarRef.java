@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.exception.UninitializedVariableException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.tokenizer.Token;
+
+/**
+ * A variable used as a value
+ */
+public class VarRef extends Expression {
+    private int slot;
+    private int declarationLine;
+
+    VarRef(Token identifier) {
+        super(identifier);
+    }
+
+    public String getName() {
+        return getToken().getString();
+    }
+
+    /**
+     * The slot of the variable, once resolved by a {@link TypeChecker}.
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    /**
+     * The line the variable was declared on, where it is reported if it is
+     * used uninitialized.
+     */
+    public int getDeclarationLine() {
+        return declarationLine;
+    }
+
+    void setDeclarationLine(int declarationLine) {
+        this.declarationLine = declarationLine;
+    }
+
+    private UninitializedVariableException uninitialized() {
+        return new UninitializedVariableException(new Variable(getName(), declarationLine, getType()));
+    }
+
+    @Override
+    public <R> R accept(Visitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public int evaluateInt(Context context) {
+        long value = context.getValue(slot);
+        if (value == Context.UNSET)
+            throw uninitialized();
+        return (int) value;
+    }
+
+    @Override
+    public boolean evaluateBool(Context context) {
+        long value = context.getValue(slot);
+        if (value == Context.UNSET)
+            throw uninitialized();
+        return value != 0;
+    }
+
+    @Override
+    public String evaluateString(Context context) {
+        String value = context.getString(slot);
+        if (value == null)
+            throw uninitialized();
+        return value;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+/**
+ * A pass over the syntax tree, with a method for each kind of node.
+ */
+public interface Visitor<R> {
+    R visit(VarDecl node);
+
+    R visit(Assign node);
+
+    R visit(For node);
+
+    R visit(Print node);
+
+    R visit(Read node);
+
+    R visit(Assert node);
+
+    R visit(Binary node);
+
+    R visit(Unary node);
+
+    R visit(Literal node);
+
+    R visit(VarRef node);
+}
@@ -16,87 +16,197 @@
 
 package fi.jgke.miniplc.builder;
 
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
+/**
+ * Combinators the grammar in {@link Syntax} is built from. Each rule is
+ * built once, so parsing allocates only what it consumes. Rules keep no
+ * state of a parse, and what they compute on first use is published safely,
+ * so one grammar can parse on many threads at once.
+ */
 public class BaseRules {
+    private static final Rule[] NO_PARTS = new Rule[0];
+    private static final TokenValue[] tokenValues = TokenValue.values();
+
     public static Rule empty() {
         return new Rule() {
             @Override
-            public boolean matches() {
+            public boolean matches(TokenQueue tokenQueue) {
                 return true;
             }
 
             @Override
-            public ConsumedRule consume() {
+            public ConsumedRule consume(TokenQueue tokenQueue) {
                 return new SimpleConsumedRule(new ArrayList<>());
             }
+
+            @Override
+            Rule[] parts() {
+                return NO_PARTS;
+            }
         };
     }
 
     public static Rule all(Rule... rules) {
         return new Rule() {
-            public boolean matches() {
-                return rules[0].with(tokenQueue).matches();
+            public SimpleConsumedRule consume(TokenQueue tokenQueue) {
+                List<ConsumedRule> tokens = new ArrayList<>(rules.length);
+                for (Rule rule : rules)
+                    tokens.add(rule.consume(tokenQueue));
+                return new SimpleConsumedRule(tokens);
             }
 
-            public SimpleConsumedRule consume() {
-                List<ConsumedRule> tokens = Arrays.stream(rules)
-                        .map(rule -> rule.with(tokenQueue).consume())
-                        .collect(Collectors.toList());
-                return new SimpleConsumedRule(tokens);
+            @Override
+            Rule[] parts() {
+                return rules;
             }
         };
     }
 
+    /**
+     * A choice between the rules. The alternative to parse is looked up from
+     * a table indexed by the next token, which maps each token to the first
+     * alternative with it in its FIRST set, or else to the first nullable
+     * alternative.
+     */
     public static Rule any(Rule... rules) {
         return new Rule() {
+            /* threads racing to build the table build equal ones */
+            private volatile Rule[] table;
+
+            @Override
+            public ConsumedRule consume(TokenQueue tokenQueue) {
+                Rule[] table = this.table;
+                if (table == null)
+                    this.table = table = buildTable(rules);
+                Rule rule = table[tokenQueue.peekValue().ordinal()];
+                if (rule == null)
+                    throw new RuleNotMatchedException(tokenQueue.element().getLineNumber());
+                return rule.consume(tokenQueue);
+            }
+
+            @Override
+            Rule[] parts() {
+                return rules;
+            }
+
+            @Override
+            boolean isChoice() {
+                return true;
+            }
+        };
+    }
+
+    private static Rule[] buildTable(Rule[] alternatives) {
+        Rule[] table = new Rule[tokenValues.length];
+        for (TokenValue value : tokenValues) {
+            for (Rule alternative : alternatives) {
+                if (alternative.isNullable() || alternative.getFirst().contains(value)) {
+                    table[value.ordinal()] = alternative;
+                    break;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Zero or more repetitions of the rules in sequence, parsed in a loop for
+     * as long as the next token can start another repetition. The handler
+     * gets a flat list with one consumed sequence per repetition, so long
+     * repetitions need no deeper stack to parse or to execute than short ones.
+     */
+    public static Rule many(Do something, Rule... when) {
+        Rule all = all(when);
+        Rule[] parts = {all};
+        return new Rule() {
+            @Override
+            public ConsumedRule consume(TokenQueue tokenQueue) {
+                EnumSet<TokenValue> first = all.getFirst();
+                List<ConsumedRule> repetitions = new ArrayList<>();
+                while (first.contains(tokenQueue.peekValue()))
+                    repetitions.add(all.consume(tokenQueue));
+                return new ConsumedRule(repetitions, something);
+            }
+
+            @Override
+            Rule[] parts() {
+                return parts;
+            }
+
+            @Override
+            boolean isChoice() {
+                return true;
+            }
+
             @Override
-            public boolean matches() {
-                return Arrays.stream(rules).anyMatch(rule -> rule.with(tokenQueue).matches());
+            boolean isRepetition() {
+                return true;
             }
 
             @Override
-            public ConsumedRule consume() {
-                return Arrays.stream(rules)
-                        .map(rule -> rule.with(tokenQueue))
-                        .filter(Rule::matches)
-                        .findFirst()
-                        .map(Rule::consume)
-                        .orElseThrow(() ->
-                                new RuleNotMatchedException(tokenQueue.element().getLineNumber())
-                        );
+            boolean first(EnumSet<TokenValue> first) {
+                first.addAll(all.getFirst());
+                return true;
             }
         };
     }
 
+    /**
+     * A rule which is built the first time it is used, so that rules can
+     * refer to each other recursively.
+     */
     public static Rule lazy(Supplier<Rule> provider) {
         return new Rule() {
+            private volatile Rule rule;
+
+            private Rule get() {
+                Rule rule = this.rule;
+                if (rule == null) {
+                    synchronized (this) {
+                        rule = this.rule;
+                        if (rule == null)
+                            this.rule = rule = provider.get();
+                    }
+                }
+                return rule;
+            }
+
+            @Override
+            public boolean matches(TokenQueue tokenQueue) {
+                return get().matches(tokenQueue);
+            }
+
             @Override
-            public boolean matches() {
-                return provider.get().with(tokenQueue).matches();
+            public ConsumedRule consume(TokenQueue tokenQueue) {
+                return get().consume(tokenQueue);
             }
 
             @Override
-            public ConsumedRule consume() {
-                return provider.get().with(tokenQueue).consume();
+            Rule[] parts() {
+                return new Rule[]{get()};
             }
         };
     }
 
     public static Rule rule(Do something, Rule ...when) {
+        Rule all = all(when);
+        Rule[] parts = {all};
         return new Rule() {
             @Override
-            public boolean matches() {
-                return all(when).with(tokenQueue).matches();
+            public ConsumedRule consume(TokenQueue tokenQueue) {
+                return new ConsumedRule(all.consume(tokenQueue).getList(), something);
             }
 
             @Override
-            public ConsumedRule consume() {
-                return new ConsumedRule(all(when).with(tokenQueue).consume().getList(), something);
+            Rule[] parts() {
+                return parts;
             }
         };
     }
@@ -17,20 +17,18 @@
 package fi.jgke.miniplc.builder;
 
 import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
 import fi.jgke.miniplc.tokenizer.TokenQueue;
 
 import static fi.jgke.miniplc.builder.Syntax.program;
-import static fi.jgke.miniplc.builder.Syntax.statements;
 import static fi.jgke.miniplc.builder.Terminal.Eos;
 
 public class Builder {
 
     public static void parseAndExecute(TokenQueue tokenQueue, Context context) {
         program()
-                .with(tokenQueue)
-                .consume()
-                .execute(context);
-        Eos.with(tokenQueue)
-                .consume();
+                .consume(tokenQueue)
+                .execute(new FrameStack(context, tokenQueue.getSymbols()));
+        Eos.consume(tokenQueue);
     }
 }
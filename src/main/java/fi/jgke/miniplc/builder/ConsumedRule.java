@@ -16,7 +16,7 @@
 
 package fi.jgke.miniplc.builder;
 
-import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
 import fi.jgke.miniplc.interpreter.Variable;
 import fi.jgke.miniplc.tokenizer.Token;
 
@@ -32,15 +32,15 @@ public class ConsumedRule {
     }
 
     @SuppressWarnings("unchecked")
-    private <T> T getValue(Context context, Class<T> type) {
-        return type.cast(this.getter.handle(this.rules, context));
+    private <T> T getValue(FrameStack frames, Class<T> type) {
+        return type.cast(this.getter.handle(this.rules, frames));
     }
 
     /**
      * Execute purely for side effects.
      */
-    public void execute(Context context) {
-        getValue(context, Object.class);
+    public void execute(FrameStack frames) {
+        getValue(frames, Object.class);
     }
 
     @SuppressWarnings("unchecked")
@@ -48,8 +48,8 @@ public class ConsumedRule {
         return getValue(null, List.class);
     }
 
-    public Variable getVariable(Context context) {
-        return getValue(context, Variable.class);
+    public Variable getVariable(FrameStack frames) {
+        return getValue(frames, Variable.class);
     }
 
     public Token getToken() {
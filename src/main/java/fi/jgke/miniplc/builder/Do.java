@@ -16,11 +16,11 @@
 
 package fi.jgke.miniplc.builder;
 
-import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
 
 import java.util.List;
 
 @FunctionalInterface
 interface Do {
-    Object handle(List<ConsumedRule> rules, Context context);
+    Object handle(List<ConsumedRule> rules, FrameStack frames);
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.builder;
+
+import fi.jgke.miniplc.tokenizer.TokenValue;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LL(1) analysis of the grammar reachable from a start rule.
+ *
+ * A choice is parsed by looking the next token up in a table built from the
+ * FIRST sets of its alternatives, with the nullable alternative taking every
+ * other token. That is only predictive if no two alternatives share a token
+ * and no FIRST set of an alternative overlaps the FOLLOW set of a choice with
+ * a nullable alternative, which is what {@link #getConflicts()} checks. A
+ * repetition is a choice between its part and nothing, and its part can
+ * also be followed by the start of another repetition.
+ */
+class Grammar {
+    private final Map<Rule, EnumSet<TokenValue>> follow = new IdentityHashMap<>();
+
+    Grammar(Rule start) {
+        collect(start);
+        follow.get(start).add(TokenValue.EOS);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : follow.keySet()) {
+                Rule[] parts = rule.parts();
+                for (int i = 0; i < parts.length; i++) {
+                    EnumSet<TokenValue> set = follow.get(parts[i]);
+                    int size = set.size();
+                    if (rule.isChoice() || followedByNullable(parts, i))
+                        set.addAll(follow.get(rule));
+                    if (rule.isRepetition())
+                        set.addAll(parts[i].getFirst());
+                    if (!rule.isChoice()) {
+                        for (int j = i + 1; j < parts.length; j++) {
+                            set.addAll(parts[j].getFirst());
+                            if (!parts[j].isNullable())
+                                break;
+                        }
+                    }
+                    changed |= set.size() != size;
+                }
+            }
+        }
+    }
+
+    private void collect(Rule rule) {
+        if (follow.containsKey(rule))
+            return;
+        follow.put(rule, EnumSet.noneOf(TokenValue.class));
+        for (Rule part : rule.parts())
+            collect(part);
+    }
+
+    private static boolean followedByNullable(Rule[] parts, int index) {
+        for (int i = index + 1; i < parts.length; i++) {
+            if (!parts[i].isNullable())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * The tokens which can follow a match of the rule.
+     */
+    EnumSet<TokenValue> getFollow(Rule rule) {
+        return follow.get(rule);
+    }
+
+    /**
+     * Descriptions of the choices which cannot be parsed predictively.
+     */
+    List<String> getConflicts() {
+        List<String> conflicts = new ArrayList<>();
+        for (Rule rule : follow.keySet()) {
+            if (!rule.isChoice())
+                continue;
+            EnumSet<TokenValue> seen = EnumSet.noneOf(TokenValue.class);
+            int nullable = 0;
+            for (Rule alternative : rule.parts()) {
+                for (TokenValue value : alternative.getFirst()) {
+                    if (!seen.add(value))
+                        conflicts.add("FIRST/FIRST conflict on " + value);
+                }
+                if (alternative.isNullable())
+                    nullable++;
+            }
+            if (nullable > 1)
+                conflicts.add("Several nullable alternatives");
+            if (nullable > 0 || rule.isRepetition()) {
+                for (TokenValue value : getFollow(rule)) {
+                    if (seen.contains(value))
+                        conflicts.add("FIRST/FOLLOW conflict on " + value);
+                }
+            }
+        }
+        return conflicts;
+    }
+}
@@ -17,16 +17,98 @@
 package fi.jgke.miniplc.builder;
 
 import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.TokenValue;
 
+import java.util.EnumSet;
+
+/**
+ * A node of the grammar. A rule is either a choice between alternatives or
+ * a sequence of parts, and is parsed predictively: whether it applies is
+ * decided from the next token alone, by its FIRST set.
+ */
 public abstract class Rule {
-    protected TokenQueue tokenQueue;
+    /* FIRST set and nullability, computed the first time they are needed.
+     * The analysis of one rule recurses into others, so all of it is done
+     * under one lock, and the FIRST set is written last to publish both. */
+    private static final Object analysisLock = new Object();
+    private volatile EnumSet<TokenValue> first;
+    private boolean nullable;
+    private boolean analysing;
+
+    /**
+     * Whether the rule applies at the next token: the token is in its FIRST
+     * set, or the rule can match nothing.
+     */
+    public boolean matches(TokenQueue tokenQueue) {
+        return isNullable() || getFirst().contains(tokenQueue.peekValue());
+    }
+
+    /**
+     * Parse the rule from the queue. All state of a parse is in the queue
+     * and the consumed rules, so a rule can parse any number of queues at
+     * once.
+     */
+    public abstract ConsumedRule consume(TokenQueue tokenQueue);
+
+    /* The alternatives of a choice, or the parts of a sequence */
+    abstract Rule[] parts();
+
+    boolean isChoice() {
+        return false;
+    }
+
+    /* A choice between another repetition of its only part and nothing */
+    boolean isRepetition() {
+        return false;
+    }
 
-    abstract boolean matches();
+    /**
+     * The tokens a match of this rule can start with.
+     */
+    public EnumSet<TokenValue> getFirst() {
+        analyse();
+        return first;
+    }
 
-    public abstract ConsumedRule consume();
+    /**
+     * Whether this rule can match without consuming any tokens.
+     */
+    public boolean isNullable() {
+        analyse();
+        return nullable;
+    }
+
+    /* Add the FIRST set of the rule, returning whether it is nullable */
+    boolean first(EnumSet<TokenValue> first) {
+        if (isChoice()) {
+            boolean nullable = false;
+            for (Rule alternative : parts()) {
+                first.addAll(alternative.getFirst());
+                nullable |= alternative.isNullable();
+            }
+            return nullable;
+        }
+        for (Rule part : parts()) {
+            first.addAll(part.getFirst());
+            if (!part.isNullable())
+                return false;
+        }
+        return true;
+    }
 
-    public Rule with(TokenQueue tokenQueue) {
-        this.tokenQueue = tokenQueue;
-        return this;
+    private void analyse() {
+        if (first != null)
+            return;
+        synchronized (analysisLock) {
+            if (first != null)
+                return;
+            if (analysing)
+                throw new IllegalStateException("Grammar is left recursive");
+            analysing = true;
+            EnumSet<TokenValue> set = EnumSet.noneOf(TokenValue.class);
+            nullable = first(set);
+            first = set;
+            analysing = false;
+        }
     }
 }
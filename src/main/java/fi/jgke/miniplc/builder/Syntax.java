@@ -25,29 +25,28 @@ import static fi.jgke.miniplc.builder.BaseRules.*;
 import static fi.jgke.miniplc.builder.Terminal.*;
 
 /**
- * Syntax definitions for the language
+ * Syntax definitions for the language. The grammar is built once and shared
+ * by every parse.
  */
 public class Syntax {
     /*
      * <program> ::= <statement> ";" <statements>
      */
-    public static Rule program() {
-        return lazy(() -> rule(StatementsHandlers::executeStatements,
-                               statement(), Semicolon, statements())
-        );
-    }
+    private static final Rule program = lazy(() ->
+            rule(StatementsHandlers::executeStatements,
+                 statement(), Semicolon, statements())
+    );
 
     /*
      * <statements> ::= <statement> ";" <statements>
      *               |  epsilon
+     *
+     * The recursion is parsed as a loop into a flat list of statements.
      */
-    public static Rule statements() {
-        return lazy(() -> any(
-                rule(StatementsHandlers::executeStatements,
-                     statement(), Semicolon, statements()),
-                empty()
-        ));
-    }
+    private static final Rule statements = lazy(() ->
+            many(StatementsHandlers::executeEach,
+                 statement(), Semicolon)
+    );
 
     /*
      * <statement> ::=  "var" <identifier> ":" <type> <maybe_assign>
@@ -58,78 +57,98 @@ public class Syntax {
      *              |   "print" <expression>
      *              |   "assert" "(" <expression> ")"
      */
-    public static Rule statement() {
-        return lazy(() -> any(
-                rule(StatementHandlers::createVariable,
-                     Var, Identifier, Colon, Type, maybe_assign()),
-                rule(StatementHandlers::updateVariable,
-                     Identifier, Assign, expression()),
-                rule(StatementHandlers::printExpression,
-                     Print, expression()),
-                rule(StatementHandlers::readVariable,
-                     Read, Identifier),
-                rule(StatementHandlers::assertExpression,
-                     Assert, OpenBrace, expression(), CloseBrace),
-                rule(StatementHandlers::forLoop,
-                     For, Identifier, In, expression(), Range, expression(), Do, statements(), End, For)
-        ));
-    }
+    private static final Rule statement = lazy(() -> any(
+            rule(StatementHandlers::createVariable,
+                 Var, Identifier, Colon, Type, maybe_assign()),
+            rule(StatementHandlers::updateVariable,
+                 Identifier, Assign, expression()),
+            rule(StatementHandlers::printExpression,
+                 Print, expression()),
+            rule(StatementHandlers::readVariable,
+                 Read, Identifier),
+            rule(StatementHandlers::assertExpression,
+                 Assert, OpenBrace, expression(), CloseBrace),
+            rule(StatementHandlers::forLoop,
+                 For, Identifier, In, expression(), Range, expression(), Do, statements(), End, For)
+    ));
 
     /*
      * <maybe_assign> ::= ":=" <expression>
      *                 |  epsilon
      */
-    private static Rule maybe_assign() {
-        return lazy(() -> any(
-                all(Assign, expression()),
-                empty()
-        ));
-    }
+    private static final Rule maybe_assign = lazy(() -> any(
+            all(Assign, expression()),
+            empty()
+    ));
 
     /*
      * <expression> ::= <unaryOperator> <operand>
      *               | <operand> <maybe_operand>
      */
-    public static Rule expression() {
-        return lazy(() -> any(
-                rule(ExpressionHandlers::handleNot,
-                     Not, operand()),
-                rule(ExpressionHandlers::handleOperation,
-                     operand(), maybe_operand())
-        ));
-    }
+    private static final Rule expression = lazy(() -> any(
+            rule(ExpressionHandlers::handleNot,
+                 Not, operand()),
+            rule(ExpressionHandlers::handleOperation,
+                 operand(), maybe_operand())
+    ));
 
     /*
      * <maybe_operand> ::= <binaryOperator> <operand>
      *                  |  epsilon
      */
-    private static Rule maybe_operand() {
-        return lazy(() -> any(
-                all(operator(), operand()),
-                empty()
-        ));
-    }
+    private static final Rule maybe_operand = lazy(() -> any(
+            all(operator(), operand()),
+            empty()
+    ));
 
     /*
      * operator ::= "+" | "-" | "*" | "/" | "<" | "=" | "&"
      */
-    public static Rule operator() {
-        return any(Plus, Minus, Times, Divide, LessThan, Equals, And);
-    }
+    private static final Rule operator = any(Plus, Minus, Times, Divide, LessThan, Equals, And);
 
     /*
      * <operand> ::=  <intConstant> | <stringConstant> | <boolConstant>
      *            |   <identifier>
      *            |   "(" expr ")"
      */
+    private static final Rule operand = lazy(() -> any(
+            rule(OperandHandlers::handleConstant,
+                 any(IntConst, StringConst, BoolConst)),
+            rule(OperandHandlers::handleIdentifier,
+                 Identifier),
+            rule(OperandHandlers::handleExpression,
+                 OpenBrace, expression(), CloseBrace)
+    ));
+
+    public static Rule program() {
+        return program;
+    }
+
+    public static Rule statements() {
+        return statements;
+    }
+
+    public static Rule statement() {
+        return statement;
+    }
+
+    private static Rule maybe_assign() {
+        return maybe_assign;
+    }
+
+    public static Rule expression() {
+        return expression;
+    }
+
+    private static Rule maybe_operand() {
+        return maybe_operand;
+    }
+
+    public static Rule operator() {
+        return operator;
+    }
+
     public static Rule operand() {
-        return lazy(() -> any(
-                rule(OperandHandlers::handleConstant,
-                     any(IntConst, StringConst, BoolConst)),
-                rule(OperandHandlers::handleIdentifier,
-                     Identifier),
-                rule(OperandHandlers::handleExpression,
-                     OpenBrace, expression(), CloseBrace)
-        ));
+        return operand;
     }
 }
@@ -16,8 +16,11 @@
 
 package fi.jgke.miniplc.builder;
 
+import fi.jgke.miniplc.tokenizer.TokenQueue;
 import fi.jgke.miniplc.tokenizer.TokenValue;
 
+import java.util.EnumSet;
+
 public class Terminal extends Rule {
 
     private final TokenValue tokenValue;
@@ -27,13 +30,23 @@ public class Terminal extends Rule {
     }
 
     @Override
-    public boolean matches() {
+    public boolean matches(TokenQueue tokenQueue) {
         return tokenQueue
-                .element()
-                .getValue()
+                .peekValue()
                 .equals(tokenValue);
     }
 
+    @Override
+    Rule[] parts() {
+        return new Rule[0];
+    }
+
+    @Override
+    boolean first(EnumSet<TokenValue> first) {
+        first.add(tokenValue);
+        return false;
+    }
+
     @Override
     public String toString() {
         return "Terminal{" +
@@ -42,7 +55,7 @@ public class Terminal extends Rule {
     }
 
     @Override
-    public ConsumedRule consume() {
+    public ConsumedRule consume(TokenQueue tokenQueue) {
         return new SimpleConsumedRule(tokenQueue.getExpectedToken(tokenValue));
     }
 
@@ -17,78 +17,30 @@
 package fi.jgke.miniplc.builder.handlers;
 
 import fi.jgke.miniplc.builder.ConsumedRule;
-import fi.jgke.miniplc.exception.OperationNotSupportedException;
-import fi.jgke.miniplc.exception.TypeException;
-import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
+import fi.jgke.miniplc.interpreter.Operations;
 import fi.jgke.miniplc.interpreter.Variable;
-import fi.jgke.miniplc.interpreter.VariableType;
 import fi.jgke.miniplc.tokenizer.Token;
-import fi.jgke.miniplc.tokenizer.TokenValue;
 
 import java.util.List;
 
 public class ExpressionHandlers {
     /* Get the second token as a variable, and return it's negation */
-    public static Object handleNot(List<ConsumedRule> rules, Context context) {
-        Variable variable = rules.get(1).getVariable(context);
-        if (!variable.getType().equals(VariableType.BOOL)) {
-            throw new OperationNotSupportedException(rules.get(0).getToken());
-        }
-        Boolean value = (Boolean) variable.getValue();
-        return new Variable(VariableType.BOOL, !value);
+    public static Object handleNot(List<ConsumedRule> rules, FrameStack frames) {
+        Variable variable = rules.get(1).getVariable(frames);
+        return Operations.not(rules.get(0).getToken(), variable);
     }
 
     /* Handle a operation such as 1 + 2, !2, "foo" + "bar" etc.
      * Also handles lone variables as identity operations */
-    public static Object handleOperation(List<ConsumedRule> rules, Context context) {
-        Variable left = rules.get(0).getVariable(context);
+    public static Object handleOperation(List<ConsumedRule> rules, FrameStack frames) {
+        Variable left = rules.get(0).getVariable(frames);
         List<ConsumedRule> b = rules.get(1).getList();
         if (!b.isEmpty()) {
             Token operator = b.get(0).getToken();
-            Variable right = b.get(1).getVariable(context);
-            return handleBinaryOperation(left, operator, right);
+            Variable right = b.get(1).getVariable(frames);
+            return Operations.binary(left, operator, right);
         }
         return left;
     }
-
-    /* Handle a binary operation such as 1 + 2 or "foo" + "bar" */
-    private static Object handleBinaryOperation(Variable left, Token operator, Variable right) {
-        if (!left.getType().equals(right.getType())) {
-            throw new TypeException(operator.getLineNumber(), left.getType(), right.getType());
-        }
-
-        if (left.getType().equals(VariableType.INT)) {
-            return handleIntegerOperation(operator, (Integer) left.getValue(), (Integer) right.getValue());
-        } else if (left.getType().equals(VariableType.STRING)) {
-            return handleStringOperation(operator, (String) left.getValue(), (String) right.getValue());
-        } else {
-            return handleBooleanOperation(operator, (Boolean) left.getValue(), (Boolean) right.getValue());
-        }
-    }
-
-    private static Variable handleIntegerOperation(Token operator, Integer left, Integer right) {
-        TokenValue op = operator.getValue();
-        if (op.equals(TokenValue.PLUS)) return new Variable(VariableType.INT, left + right);
-        else if (op.equals(TokenValue.MINUS)) return new Variable(VariableType.INT, left - right);
-        else if (op.equals(TokenValue.TIMES)) return new Variable(VariableType.INT, left * right);
-        else if (op.equals(TokenValue.DIVIDE)) return new Variable(VariableType.INT, left / right);
-        else if (op.equals(TokenValue.LESS_THAN)) return new Variable(VariableType.BOOL, left < right);
-        else if (op.equals(TokenValue.EQUALS))
-            return new Variable(VariableType.BOOL, left.equals(right));
-        throw new OperationNotSupportedException(VariableType.INT, operator);
-    }
-
-    private static Variable handleStringOperation(Token operator, String left, String right) {
-        TokenValue op = operator.getValue();
-        if (op.equals(TokenValue.PLUS)) return new Variable(VariableType.STRING, left + right);
-        else if (op.equals(TokenValue.EQUALS)) return new Variable(VariableType.BOOL, left.equals(right));
-        throw new OperationNotSupportedException(VariableType.STRING, operator);
-    }
-
-    private static Variable handleBooleanOperation(Token operator, Boolean left, Boolean right) {
-        TokenValue op = operator.getValue();
-        if (op.equals(TokenValue.AND)) return new Variable(VariableType.BOOL, left && right);
-        else if (op.equals(TokenValue.EQUALS)) return new Variable(VariableType.BOOL, left.equals(right));
-        throw new OperationNotSupportedException(VariableType.BOOL, operator);
-    }
 }
@@ -17,7 +17,7 @@
 package fi.jgke.miniplc.builder.handlers;
 
 import fi.jgke.miniplc.builder.ConsumedRule;
-import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
 import fi.jgke.miniplc.interpreter.Variable;
 import fi.jgke.miniplc.interpreter.VariableType;
 import fi.jgke.miniplc.tokenizer.Token;
@@ -27,7 +27,7 @@ import java.util.List;
 public class OperandHandlers {
 
     /* Get a constant such as 5, true or "foo" */
-    public static Object handleConstant(List<ConsumedRule> rules, Context context) {
+    public static Object handleConstant(List<ConsumedRule> rules, FrameStack frames) {
         Token token = rules.get(0).getToken();
         Object content = token.getContent();
         if (content instanceof Integer)
@@ -39,13 +39,14 @@ public class OperandHandlers {
     }
 
     /* Get any lone variable */
-    public static Object handleIdentifier(List<ConsumedRule> rules, Context context) {
+    public static Object handleIdentifier(List<ConsumedRule> rules, FrameStack frames) {
         Token token = rules.get(0).getToken();
-        return context.getVariable(token.getString(), token.getLineNumber());
+        int symbol = frames.resolve(token.getSymbol(), token.getString());
+        return frames.getVariable(symbol, token.getLineNumber());
     }
 
     /* handle (expression) */
-    public static Object handleExpression(List<ConsumedRule> rules, Context context) {
-        return rules.get(1).getVariable(context);
+    public static Object handleExpression(List<ConsumedRule> rules, FrameStack frames) {
+        return rules.get(1).getVariable(frames);
     }
 }
@@ -18,7 +18,7 @@ package fi.jgke.miniplc.builder.handlers;
 
 import fi.jgke.miniplc.builder.ConsumedRule;
 import fi.jgke.miniplc.builder.Syntax;
-import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
 
 import java.util.List;
 
@@ -27,9 +27,19 @@ public class StatementsHandlers {
      * Execute statements
      * @see Syntax
      */
-    public static Object executeStatements(List<ConsumedRule> rules, Context context) {
-        rules.get(0).execute(context);
-        rules.get(2).execute(context);
+    public static Object executeStatements(List<ConsumedRule> rules, FrameStack frames) {
+        rules.get(0).execute(frames);
+        rules.get(2).execute(frames);
+        return null;
+    }
+
+    /**
+     * Execute a flat list of statements, each consumed with its semicolon
+     * @see Syntax
+     */
+    public static Object executeEach(List<ConsumedRule> rules, FrameStack frames) {
+        for (ConsumedRule statement : rules)
+            statement.getList().get(0).execute(frames);
         return null;
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.closure;
+
+import fi.jgke.miniplc.ast.Binary;
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.Literal;
+import fi.jgke.miniplc.ast.Unary;
+import fi.jgke.miniplc.ast.VarRef;
+import fi.jgke.miniplc.exception.UninitializedVariableException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compiles checked boolean expressions, including the comparisons of other
+ * types, into lambdas.
+ */
+final class BoolCompiler extends ExpressionCompiler<Predicate<Context>> {
+    private static final BoolCompiler INSTANCE = new BoolCompiler();
+
+    private BoolCompiler() {
+    }
+
+    static Predicate<Context> compile(Expression expression) {
+        if (expression.getType() != VariableType.BOOL)
+            throw new IllegalStateException("Not a boolean expression: " + expression.getToken());
+        return expression.accept(INSTANCE);
+    }
+
+    @Override
+    public Predicate<Context> visit(Binary node) {
+        switch (node.getLeft().getType()) {
+            case INT:
+                return compare(node, IntCompiler.compile(left(node)), IntCompiler.compile(right(node)));
+            case BOOL: {
+                Predicate<Context> left = compile(left(node));
+                Predicate<Context> right = compile(right(node));
+                switch (node.getOperator().getValue()) {
+                    case AND:
+                        /* both operands are always evaluated */
+                        return context -> left.test(context) & right.test(context);
+                    case EQUALS:
+                        return context -> left.test(context) == right.test(context);
+                    default:
+                        throw notTypeChecked(node);
+                }
+            }
+            default: {
+                Function<Context, String> left = StringCompiler.compile(left(node));
+                Function<Context, String> right = StringCompiler.compile(right(node));
+                switch (node.getOperator().getValue()) {
+                    case EQUALS:
+                        return context -> left.apply(context).equals(right.apply(context));
+                    default:
+                        throw notTypeChecked(node);
+                }
+            }
+        }
+    }
+
+    private static Predicate<Context> compare(Binary node, ToIntFunction<Context> left,
+                                              ToIntFunction<Context> right) {
+        switch (node.getOperator().getValue()) {
+            case EQUALS:
+                return context -> left.applyAsInt(context) == right.applyAsInt(context);
+            case LESS_THAN:
+                if (isRightFirst(node))
+                    return context -> {
+                        int b = right.applyAsInt(context);
+                        return left.applyAsInt(context) < b;
+                    };
+                return context -> left.applyAsInt(context) < right.applyAsInt(context);
+            default:
+                throw notTypeChecked(node);
+        }
+    }
+
+    @Override
+    public Predicate<Context> visit(Unary node) {
+        Predicate<Context> operand = compile(node.getOperand());
+        return context -> !operand.test(context);
+    }
+
+    @Override
+    public Predicate<Context> visit(Literal node) {
+        boolean constant = (Boolean) node.getValue().getValue();
+        return context -> constant;
+    }
+
+    @Override
+    public Predicate<Context> visit(VarRef node) {
+        int slot = node.getSlot();
+        Variable variable = new Variable(node.getName(), node.getDeclarationLine(), node.getType());
+        return context -> {
+            long value = context.getValue(slot);
+            if (value == Context.UNSET)
+                throw new UninitializedVariableException(variable);
+            return value != 0;
+        };
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.closure;
+
+import fi.jgke.miniplc.ast.Assert;
+import fi.jgke.miniplc.ast.Assign;
+import fi.jgke.miniplc.ast.Binary;
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.For;
+import fi.jgke.miniplc.ast.Literal;
+import fi.jgke.miniplc.ast.Print;
+import fi.jgke.miniplc.ast.Read;
+import fi.jgke.miniplc.ast.Statement;
+import fi.jgke.miniplc.ast.Unary;
+import fi.jgke.miniplc.ast.VarDecl;
+import fi.jgke.miniplc.ast.VarRef;
+import fi.jgke.miniplc.ast.Visitor;
+import fi.jgke.miniplc.exception.AssertionFailureException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executable;
+import fi.jgke.miniplc.interpreter.Operations;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compiles a program into lambdas, each of which captures its children and
+ * slot. Expressions are compiled by a visitor for their type, and a
+ * subclass may compile some statements differently.
+ */
+public class ClosureCompiler implements Visitor<Executable> {
+    private static final ClosureCompiler INSTANCE = new ClosureCompiler();
+
+    protected ClosureCompiler() {
+    }
+
+    public static Executable compile(Block program) {
+        return INSTANCE.block(program);
+    }
+
+    protected Executable block(Block block) {
+        List<Statement> statements = block.getStatements();
+        Executable[] compiled = new Executable[statements.size()];
+        for (int i = 0; i < compiled.length; i++)
+            compiled[i] = statements.get(i).accept(this);
+        return context -> {
+            for (Executable statement : compiled)
+                statement.execute(context);
+        };
+    }
+
+    protected ToIntFunction<Context> compileInt(Expression expression) {
+        return IntCompiler.compile(expression);
+    }
+
+    protected Predicate<Context> compileBool(Expression expression) {
+        return BoolCompiler.compile(expression);
+    }
+
+    protected Function<Context, String> compileString(Expression expression) {
+        return StringCompiler.compile(expression);
+    }
+
+    private Executable set(int slot, Expression value) {
+        switch (value.getType()) {
+            case INT: {
+                ToIntFunction<Context> code = compileInt(value);
+                return context -> context.setInt(slot, code.applyAsInt(context));
+            }
+            case BOOL: {
+                Predicate<Context> code = compileBool(value);
+                return context -> context.setBool(slot, code.test(context));
+            }
+            default: {
+                Function<Context, String> code = compileString(value);
+                return context -> context.setString(slot, code.apply(context));
+            }
+        }
+    }
+
+    @Override
+    public Executable visit(VarDecl node) {
+        int slot = node.getSlot();
+        if (node.getValue() == null)
+            return context -> context.unset(slot);
+        return set(slot, node.getValue());
+    }
+
+    @Override
+    public Executable visit(Assign node) {
+        return set(node.getSlot(), node.getValue());
+    }
+
+    @Override
+    public Executable visit(For node) {
+        int slot = node.getSlot();
+        ToIntFunction<Context> start = compileInt(node.getStart());
+        ToIntFunction<Context> end = compileInt(node.getEnd());
+        Executable body = block(node.getBody());
+        return context -> {
+            int first = start.applyAsInt(context);
+            int last = For.exclusiveEnd(end.applyAsInt(context));
+            for (int i = first; i < last; i++) {
+                context.setInt(slot, i);
+                body.execute(context);
+            }
+            context.setInt(slot, last);
+        };
+    }
+
+    @Override
+    public Executable visit(Print node) {
+        Expression value = node.getValue();
+        switch (value.getType()) {
+            case INT: {
+                ToIntFunction<Context> code = compileInt(value);
+                return context -> context.print(code.applyAsInt(context));
+            }
+            case BOOL: {
+                Predicate<Context> code = compileBool(value);
+                return context -> context.print(code.test(context));
+            }
+            default: {
+                Function<Context, String> code = compileString(value);
+                return context -> context.print(code.apply(context));
+            }
+        }
+    }
+
+    @Override
+    public Executable visit(Read node) {
+        int slot = node.getSlot();
+        VariableType type = node.getType();
+        String name = node.getName();
+        int line = node.getLineNumber();
+        return context -> {
+            Variable variable = Operations.read(context, type, name, line);
+            if (type == VariableType.INT)
+                context.setInt(slot, (Integer) variable.getValue());
+            else
+                context.setString(slot, (String) variable.getValue());
+        };
+    }
+
+    @Override
+    public Executable visit(Assert node) {
+        Predicate<Context> condition = compileBool(node.getCondition());
+        int line = node.getLineNumber();
+        return context -> {
+            if (!condition.test(context))
+                throw new AssertionFailureException(line);
+        };
+    }
+
+    private static IllegalStateException notAStatement() {
+        return new IllegalStateException("Expressions are compiled by the compiler of their type");
+    }
+
+    @Override
+    public Executable visit(Binary node) {
+        throw notAStatement();
+    }
+
+    @Override
+    public Executable visit(Unary node) {
+        throw notAStatement();
+    }
+
+    @Override
+    public Executable visit(Literal node) {
+        throw notAStatement();
+    }
+
+    @Override
+    public Executable visit(VarRef node) {
+        throw notAStatement();
+    }
+}
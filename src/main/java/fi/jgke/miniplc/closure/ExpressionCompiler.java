@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.closure;
+
+import fi.jgke.miniplc.ast.Assert;
+import fi.jgke.miniplc.ast.Assign;
+import fi.jgke.miniplc.ast.Binary;
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.For;
+import fi.jgke.miniplc.ast.Print;
+import fi.jgke.miniplc.ast.Read;
+import fi.jgke.miniplc.ast.VarDecl;
+import fi.jgke.miniplc.ast.Visitor;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+/**
+ * Compiles the checked expressions of one type into lambdas of the given
+ * kind. An expression of another type is an error.
+ *
+ * Operands are evaluated left to right, so to evaluate the right one first
+ * the operands of a commutative operator are swapped, and others get a
+ * lambda of their own which evaluates the right operand first.
+ */
+abstract class ExpressionCompiler<R> implements Visitor<R> {
+    /* The operand which the lambda of a binary operator evaluates first */
+    static Expression left(Binary node) {
+        return isSwapped(node) ? node.getRight() : node.getLeft();
+    }
+
+    static Expression right(Binary node) {
+        return isSwapped(node) ? node.getLeft() : node.getRight();
+    }
+
+    /* Whether the lambda of a binary operator must evaluate its right
+     * operand first */
+    static boolean isRightFirst(Binary node) {
+        return node.isRightFirst() && !isSwapped(node);
+    }
+
+    private static boolean isSwapped(Binary node) {
+        return node.isRightFirst() && isCommutative(node);
+    }
+
+    private static boolean isCommutative(Binary node) {
+        switch (node.getOperator().getValue()) {
+            case PLUS:
+                return node.getLeft().getType() == VariableType.INT;
+            case TIMES:
+            case AND:
+            case EQUALS:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static IllegalStateException notTypeChecked(Binary node) {
+        return new IllegalStateException("Operator was not type checked: " + node.getOperator());
+    }
+
+    private static IllegalStateException notAnExpression() {
+        return new IllegalStateException("Statements are compiled by the ClosureCompiler");
+    }
+
+    @Override
+    public R visit(VarDecl node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public R visit(Assign node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public R visit(For node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public R visit(Print node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public R visit(Read node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public R visit(Assert node) {
+        throw notAnExpression();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.closure;
+
+import fi.jgke.miniplc.ast.Binary;
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.Literal;
+import fi.jgke.miniplc.ast.Unary;
+import fi.jgke.miniplc.ast.VarRef;
+import fi.jgke.miniplc.exception.UninitializedVariableException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Compiles checked integer expressions into lambdas.
+ */
+final class IntCompiler extends ExpressionCompiler<ToIntFunction<Context>> {
+    private static final IntCompiler INSTANCE = new IntCompiler();
+
+    private IntCompiler() {
+    }
+
+    static ToIntFunction<Context> compile(Expression expression) {
+        if (expression.getType() != VariableType.INT)
+            throw new IllegalStateException("Not an integer expression: " + expression.getToken());
+        return expression.accept(INSTANCE);
+    }
+
+    @Override
+    public ToIntFunction<Context> visit(Binary node) {
+        ToIntFunction<Context> left = compile(left(node));
+        ToIntFunction<Context> right = compile(right(node));
+        boolean rightFirst = isRightFirst(node);
+        switch (node.getOperator().getValue()) {
+            case PLUS:
+                return context -> left.applyAsInt(context) + right.applyAsInt(context);
+            case TIMES:
+                return context -> left.applyAsInt(context) * right.applyAsInt(context);
+            case MINUS:
+                if (rightFirst)
+                    return context -> {
+                        int b = right.applyAsInt(context);
+                        return left.applyAsInt(context) - b;
+                    };
+                return context -> left.applyAsInt(context) - right.applyAsInt(context);
+            case DIVIDE:
+                if (rightFirst)
+                    return context -> {
+                        int b = right.applyAsInt(context);
+                        return left.applyAsInt(context) / b;
+                    };
+                return context -> left.applyAsInt(context) / right.applyAsInt(context);
+            default:
+                throw notTypeChecked(node);
+        }
+    }
+
+    @Override
+    public ToIntFunction<Context> visit(Unary node) {
+        throw new IllegalStateException("Operator was not type checked: " + node.getOperator());
+    }
+
+    @Override
+    public ToIntFunction<Context> visit(Literal node) {
+        int constant = (Integer) node.getValue().getValue();
+        return context -> constant;
+    }
+
+    @Override
+    public ToIntFunction<Context> visit(VarRef node) {
+        int slot = node.getSlot();
+        Variable variable = new Variable(node.getName(), node.getDeclarationLine(), node.getType());
+        return context -> {
+            long value = context.getValue(slot);
+            if (value == Context.UNSET)
+                throw new UninitializedVariableException(variable);
+            return (int) value;
+        };
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.closure;
+
+import fi.jgke.miniplc.ast.Binary;
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.Literal;
+import fi.jgke.miniplc.ast.Unary;
+import fi.jgke.miniplc.ast.VarRef;
+import fi.jgke.miniplc.exception.UninitializedVariableException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+
+import java.util.function.Function;
+
+/**
+ * Compiles checked string expressions into lambdas.
+ */
+final class StringCompiler extends ExpressionCompiler<Function<Context, String>> {
+    private static final StringCompiler INSTANCE = new StringCompiler();
+
+    private StringCompiler() {
+    }
+
+    static Function<Context, String> compile(Expression expression) {
+        if (expression.getType() != VariableType.STRING)
+            throw new IllegalStateException("Not a string expression: " + expression.getToken());
+        return expression.accept(INSTANCE);
+    }
+
+    @Override
+    public Function<Context, String> visit(Binary node) {
+        if (node.getOperator().getValue() != TokenValue.PLUS)
+            throw notTypeChecked(node);
+        Function<Context, String> left = compile(left(node));
+        Function<Context, String> right = compile(right(node));
+        if (isRightFirst(node))
+            return context -> {
+                String b = right.apply(context);
+                return left.apply(context) + b;
+            };
+        return context -> left.apply(context) + right.apply(context);
+    }
+
+    @Override
+    public Function<Context, String> visit(Unary node) {
+        throw new IllegalStateException("Operator was not type checked: " + node.getOperator());
+    }
+
+    @Override
+    public Function<Context, String> visit(Literal node) {
+        String constant = (String) node.getValue().getValue();
+        return context -> constant;
+    }
+
+    @Override
+    public Function<Context, String> visit(VarRef node) {
+        int slot = node.getSlot();
+        Variable variable = new Variable(node.getName(), node.getDeclarationLine(), node.getType());
+        return context -> {
+            String value = context.getString(slot);
+            if (value == null)
+                throw new UninitializedVariableException(variable);
+            return value;
+        };
+    }
+}
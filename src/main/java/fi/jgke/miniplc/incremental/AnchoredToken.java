@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.incremental;
+
+import fi.jgke.miniplc.tokenizer.Token;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+
+/**
+ * Token whose position is stored relative to the statement it belongs to, so
+ * that the statement can move around the document without touching its
+ * tokens.
+ */
+class AnchoredToken extends Token {
+    private final Statement statement;
+    /* a column on the first line of the statement counts from its start */
+    private final boolean onFirstLine;
+
+    AnchoredToken(TokenValue value, Object content, int symbol, int line, int column,
+                  boolean onFirstLine, Statement statement) {
+        super(value, content, symbol, line, column);
+        this.onFirstLine = onFirstLine;
+        this.statement = statement;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return statement.getLineNumber() + super.getLineNumber();
+    }
+
+    @Override
+    public int getColumn() {
+        return onFirstLine ? statement.getColumn() + super.getColumn() - 1 : super.getColumn();
+    }
+}
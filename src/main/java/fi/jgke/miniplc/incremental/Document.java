@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.incremental;
+
+import fi.jgke.miniplc.ast.TypeChecker;
+import fi.jgke.miniplc.builder.RuleNotMatchedException;
+import fi.jgke.miniplc.exception.UnexpectedTokenException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.tokenizer.SymbolTable;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A script which is being edited, lexed and parsed one top level statement
+ * at a time.
+ *
+ * An edit lexes again only the segments it touches, running on into the
+ * following segments only while the edit changes how they are lexed, such as
+ * when it opens a comment. Statements whose text did not change keep their
+ * tokens and parse trees. Line numbers are stored relative to the segment a
+ * statement is in, so an edit does not renumber the rest of the document and
+ * takes time independent of its length.
+ *
+ * Executing the document behaves like {@link fi.jgke.miniplc.interpreter.Executor}
+ * with the same text, including the errors thrown.
+ */
+public class Document {
+    private final SymbolTable symbols = new SymbolTable();
+    private Segment root;
+    /* bumped by every edit, invalidating the cached line numbers */
+    int version;
+
+    public Document(String text) {
+        RegionLexer lexer = new RegionLexer(this, text, true);
+        lexer.lex();
+        root = build(lexer.getSegments());
+        for (Statement statement : lexer.getStatements())
+            statement.parse();
+    }
+
+    private static Segment build(List<Segment> segments) {
+        Segment root = null;
+        for (Segment segment : segments)
+            root = Segment.merge(root, segment);
+        return root;
+    }
+
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public int length() {
+        return Segment.length(root);
+    }
+
+    public String getText() {
+        StringBuilder builder = new StringBuilder(length());
+        for (Segment segment : segments(root))
+            builder.append(segment.text);
+        return builder.toString();
+    }
+
+    public int getStatementCount() {
+        return Segment.statementCount(root);
+    }
+
+    public Statement getStatement(int index) {
+        if (index < 0 || index >= getStatementCount())
+            throw new IndexOutOfBoundsException("Statement " + index + " of " + getStatementCount());
+        Segment node = root;
+        while (true) {
+            int left = Segment.statementCount(node.left);
+            if (index < left) {
+                node = node.left;
+            } else if (index < left + node.statements.size()) {
+                return node.statements.get(index - left);
+            } else {
+                index -= left + node.statements.size();
+                node = node.right;
+            }
+        }
+    }
+
+    public List<Statement> getStatements() {
+        List<Statement> statements = new ArrayList<>(getStatementCount());
+        for (Segment segment : segments(root))
+            statements.addAll(segment.statements);
+        return statements;
+    }
+
+    private static List<Segment> segments(Segment root) {
+        List<Segment> segments = new ArrayList<>(Segment.count(root));
+        Segment.collect(root, segments);
+        return segments;
+    }
+
+    /* The segment holding the character at the offset, or the last one at the end */
+    private int segmentAt(int offset) {
+        if (offset >= root.length)
+            return root.count - 1;
+        Segment node = root;
+        int index = 0;
+        while (true) {
+            int left = Segment.length(node.left);
+            if (offset < left) {
+                node = node.left;
+            } else if (offset < left + node.text.length()) {
+                return index + Segment.count(node.left);
+            } else {
+                offset -= left + node.text.length();
+                index += Segment.count(node.left) + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Replace the given number of characters at the offset with the inserted
+     * text.
+     */
+    public EditResult edit(int offset, int removed, String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > length())
+            throw new IndexOutOfBoundsException("Edit of " + removed + " at " + offset + " in " + length());
+
+        int first = segmentAt(offset);
+        int last = removed == 0 ? first : segmentAt(offset + removed - 1);
+        Segment[] parts = Segment.split(root, first);
+        Segment before = parts[0];
+        parts = Segment.split(parts[1], last - first + 1);
+        Segment after = parts[1];
+
+        List<Segment> damaged = segments(parts[0]);
+        StringBuilder text = new StringBuilder();
+        for (Segment segment : damaged)
+            text.append(segment.text);
+        int start = offset - Segment.length(before);
+        text.replace(start, start + removed, inserted);
+
+        RegionLexer lexer;
+        while (!(lexer = new RegionLexer(this, text.toString(), after == null)).lex()) {
+            /* the edit changes how the following text is lexed, so take in
+             * as many segments again as were lexed so far */
+            parts = Segment.split(after, damaged.size());
+            after = parts[1];
+            for (Segment segment : segments(parts[0])) {
+                damaged.add(segment);
+                text.append(segment.text);
+            }
+        }
+
+        List<Statement> previous = new ArrayList<>();
+        for (Segment segment : damaged)
+            previous.addAll(segment.statements);
+        List<Statement> current = lexer.getStatements();
+
+        int prefix = 0;
+        while (prefix < Math.min(previous.size(), current.size())
+                && reuse(previous.get(prefix), current.get(prefix)))
+            prefix++;
+        int suffix = 0;
+        while (suffix < Math.min(previous.size(), current.size()) - prefix
+                && reuse(previous.get(previous.size() - 1 - suffix), current.get(current.size() - 1 - suffix)))
+            suffix++;
+
+        int index = Segment.statementCount(before) + prefix;
+        root = Segment.merge(Segment.merge(before, build(lexer.getSegments())), after);
+        version++;
+
+        List<Statement> changed = new ArrayList<>(current.subList(prefix, current.size() - suffix));
+        for (Statement statement : changed)
+            statement.parse();
+        return new EditResult(index, new ArrayList<>(previous.subList(prefix, previous.size() - suffix)),
+                changed, text.length());
+    }
+
+    /* Keep the old statement in place of a new one with the same text */
+    private static boolean reuse(Statement old, Statement statement) {
+        if (!old.getText().equals(statement.getText()))
+            return false;
+        old.moveTo(statement);
+        List<Statement> statements = statement.segment.statements;
+        statements.set(statements.indexOf(statement), old);
+        return true;
+    }
+
+    /**
+     * Execute the document. Errors are thrown in the same order as when the
+     * whole text is lexed, parsed and type checked before it is executed.
+     */
+    public void execute(Context context) {
+        List<Statement> program = getStatements();
+        for (Statement statement : program) {
+            if (statement.hasLexingFailed())
+                throw statement.getError();
+        }
+        if (program.isEmpty())
+            throw new RuleNotMatchedException(Segment.lines(root) + 1);
+
+        /* parsing stops at the first statement which does not start like one,
+         * and the end of the input is expected there after executing */
+        int end = program.size();
+        for (int i = 0; i < program.size(); i++) {
+            Statement statement = program.get(i);
+            if (!statement.isStatement()) {
+                if (i == 0)
+                    throw new RuleNotMatchedException(statement.getFirstToken().getLineNumber());
+                end = i;
+                break;
+            }
+            if (!statement.isValid())
+                throw statement.getError();
+        }
+
+        TypeChecker checker = new TypeChecker();
+        for (int i = 0; i < end; i++)
+            checker.check(program.get(i).getNode());
+        context.allocateSlots(checker.getSlotCount());
+        for (int i = 0; i < end; i++)
+            program.get(i).getNode().execute(context);
+        if (end < program.size())
+            throw new UnexpectedTokenException(program.get(end).getFirstToken(), TokenValue.EOS);
+    }
+}
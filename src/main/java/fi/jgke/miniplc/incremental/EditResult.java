@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.incremental;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The top level statements an edit of a {@link Document} changed: the
+ * removed statements were replaced by the inserted ones, starting from the
+ * same index. Statements outside of these were kept as they were.
+ */
+public class EditResult {
+    private final int index;
+    private final List<Statement> removed;
+    private final List<Statement> inserted;
+    private final int relexedLength;
+
+    EditResult(int index, List<Statement> removed, List<Statement> inserted, int relexedLength) {
+        this.index = index;
+        this.removed = removed;
+        this.inserted = inserted;
+        this.relexedLength = relexedLength;
+    }
+
+    /**
+     * The index of the first changed statement.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public List<Statement> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    public List<Statement> getInserted() {
+        return Collections.unmodifiableList(inserted);
+    }
+
+    /**
+     * How many characters around the edit were lexed again.
+     */
+    public int getRelexedLength() {
+        return relexedLength;
+    }
+}
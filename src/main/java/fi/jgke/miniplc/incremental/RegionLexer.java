@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.incremental;
+
+import fi.jgke.miniplc.tokenizer.Token;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lexes a run of text which starts a segment into segments and statements.
+ *
+ * A statement ends at a semicolon outside of any for loop. A segment ends
+ * after the last newline between two statements which is not inside a
+ * multiline comment, so every segment starts at a line start the tokenizer
+ * would reach in its initial state. Lexing errors do not stop the lexer; the
+ * statement they occur in is marked instead.
+ */
+class RegionLexer {
+    private final Document document;
+    private final String text;
+    /* whether the text runs to the end of the document */
+    private final boolean atEnd;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<Statement> statements = new ArrayList<>();
+
+    /* the segment being lexed */
+    private int segmentStart;
+    private int segmentLine = 1;
+    private List<Statement> segmentStatements = new ArrayList<>();
+
+    /* the text after the last statement, where the segment can end */
+    private int gapStart;
+    private int gapLine = 1;
+
+    /* the statement being lexed */
+    private Statement pending;
+    private int pendingStart;
+    private int pendingLine;
+    private int depth;
+    private TokenValue previous;
+
+    RegionLexer(Document document, String text, boolean atEnd) {
+        this.document = document;
+        this.text = text;
+        this.atEnd = atEnd;
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    List<Statement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Lex the text. Returns false if the end of the text is not the end of a
+     * segment, such as when it stops inside a comment or a statement, in
+     * which case the lexed segments must not be used.
+     */
+    boolean lex() {
+        Tokenizer tokenizer = new Tokenizer(text, 1, document.getSymbols());
+        while (true) {
+            Token token;
+            try {
+                token = tokenizer.nextToken();
+            } catch (RuntimeException e) {
+                begin(tokenizer);
+                pending.lexingFailed();
+                continue;
+            }
+            if (token.getValue() == TokenValue.EOS)
+                return finish(tokenizer, token);
+
+            begin(tokenizer);
+            pending.add(anchor(token, tokenizer));
+            if (token.getValue() == TokenValue.FOR && previous != TokenValue.END)
+                depth++;
+            else if (token.getValue() == TokenValue.END)
+                depth = Math.max(0, depth - 1);
+            previous = token.getValue();
+
+            if (token.getValue() == TokenValue.SEMICOLON && depth == 0) {
+                gapStart = (int) tokenizer.getTokenOffset() + 1;
+                gapLine = token.getLineNumber();
+                endStatement(gapStart);
+            }
+        }
+    }
+
+    private boolean finish(Tokenizer tokenizer, Token eos) {
+        if (atEnd) {
+            if (pending != null) {
+                pending.add(anchor(eos, tokenizer));
+                endStatement(text.length());
+            }
+            endSegment(text.length(), eos.getLineNumber());
+            return true;
+        }
+        if (pending != null)
+            return false;
+        return segmentStart == text.length() || cut(text.length()) && segmentStart == text.length();
+    }
+
+    /* Start a statement at the token just lexed, unless one is pending */
+    private void begin(Tokenizer tokenizer) {
+        if (pending != null)
+            return;
+        int start = (int) tokenizer.getTokenOffset();
+        if (!segmentStatements.isEmpty())
+            cut(start);
+        pending = new Statement(tokenizer.getTokenLine() - segmentLine, tokenizer.getTokenColumn());
+        pendingStart = start;
+        pendingLine = tokenizer.getTokenLine();
+    }
+
+    private Token anchor(Token token, Tokenizer tokenizer) {
+        boolean onFirstLine = tokenizer.getTokenLine() == pendingLine;
+        int column = onFirstLine ? tokenizer.getTokenColumn() - pending.column + 1 : tokenizer.getTokenColumn();
+        return new AnchoredToken(token.getValue(), token.getContent(), token.getSymbol(),
+                token.getLineNumber() - pendingLine, column, onFirstLine, pending);
+    }
+
+    private void endStatement(int end) {
+        pending.close(text.substring(pendingStart, end));
+        segmentStatements.add(pending);
+        statements.add(pending);
+        pending = null;
+    }
+
+    private void endSegment(int end, int line) {
+        segments.add(new Segment(document, text.substring(segmentStart, end), line - segmentLine, segmentStatements));
+        segmentStart = end;
+        segmentLine = line;
+        segmentStatements = new ArrayList<>();
+    }
+
+    /**
+     * End the segment after the last newline in the gap before the given
+     * offset which is not inside a multiline comment. The gap only holds
+     * whitespace and comments. Returns false if there is no such newline.
+     */
+    private boolean cut(int end) {
+        int newline = -1;
+        int lines = 0;
+        int linesToNewline = 0;
+        int i = gapStart;
+        while (i < end) {
+            char c = text.charAt(i);
+            char next = i + 1 < end ? text.charAt(i + 1) : 0;
+            if (c == '/' && next == '/') {
+                int close = text.indexOf('\n', i);
+                if (close < 0 || close >= end)
+                    break;
+                newline = close;
+                linesToNewline = ++lines;
+                i = close + 1;
+            } else if (c == '/' && next == '*') {
+                int close = text.indexOf("*/", i + 2);
+                if (close < 0 || close >= end)
+                    break;
+                for (; i < close; i++) {
+                    if (text.charAt(i) == '\n')
+                        lines++;
+                }
+                i = close + 2;
+            } else {
+                if (c == '\n') {
+                    newline = i;
+                    linesToNewline = ++lines;
+                }
+                i++;
+            }
+        }
+        if (newline < 0)
+            return false;
+        endSegment(newline + 1, gapLine + linesToNewline);
+        return true;
+    }
+}
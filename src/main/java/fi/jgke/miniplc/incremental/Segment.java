@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.incremental;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Whole lines of a {@link Document} holding one or more statements, or the
+ * end of the input. A segment starts at the start of a line outside of any
+ * comment or literal, so it can be lexed on its own.
+ *
+ * The segments of a document are the nodes of a treap ordered by position.
+ * Each node keeps the total length, lines and statements of its subtree, so
+ * finding a segment and computing where it starts take logarithmic time no
+ * matter how many segments precede it.
+ */
+class Segment {
+    private final Document document;
+    final String text;
+    /* lines the tokenizer counts within the text */
+    final int lineCount;
+    final List<Statement> statements;
+
+    private final int priority = ThreadLocalRandom.current().nextInt();
+    Segment left;
+    Segment right;
+    Segment parent;
+
+    /* totals of the subtree */
+    int count;
+    int length;
+    int lines;
+    int statementCount;
+
+    /* first line, valid while the document has not been edited since */
+    private int lineNumber;
+    private int lineNumberVersion = -1;
+
+    Segment(Document document, String text, int lineCount, List<Statement> statements) {
+        this.document = document;
+        this.text = text;
+        this.lineCount = lineCount;
+        this.statements = statements;
+        for (Statement statement : statements)
+            statement.segment = this;
+        update();
+    }
+
+    static int count(Segment segment) {
+        return segment == null ? 0 : segment.count;
+    }
+
+    static int length(Segment segment) {
+        return segment == null ? 0 : segment.length;
+    }
+
+    static int lines(Segment segment) {
+        return segment == null ? 0 : segment.lines;
+    }
+
+    static int statementCount(Segment segment) {
+        return segment == null ? 0 : segment.statementCount;
+    }
+
+    private void update() {
+        count = count(left) + 1 + count(right);
+        length = length(left) + text.length() + length(right);
+        lines = lines(left) + lineCount + lines(right);
+        statementCount = statementCount(left) + statements.size() + statementCount(right);
+        if (left != null)
+            left.parent = this;
+        if (right != null)
+            right.parent = this;
+    }
+
+    static Segment merge(Segment left, Segment right) {
+        Segment root = join(left, right);
+        if (root != null)
+            root.parent = null;
+        return root;
+    }
+
+    private static Segment join(Segment left, Segment right) {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+        if (left.priority > right.priority) {
+            left.right = join(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = join(left, right.left);
+        right.update();
+        return right;
+    }
+
+    /**
+     * Split a tree into its first count segments and the rest, returned as
+     * the two elements of an array.
+     */
+    static Segment[] split(Segment root, int count) {
+        Segment[] parts = new Segment[2];
+        cut(root, count, parts);
+        for (Segment part : parts) {
+            if (part != null)
+                part.parent = null;
+        }
+        return parts;
+    }
+
+    private static void cut(Segment node, int count, Segment[] parts) {
+        if (node == null) {
+            parts[0] = parts[1] = null;
+            return;
+        }
+        if (count <= count(node.left)) {
+            cut(node.left, count, parts);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+        } else {
+            cut(node.right, count - count(node.left) - 1, parts);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+        }
+    }
+
+    static void collect(Segment node, List<Segment> segments) {
+        if (node == null)
+            return;
+        collect(node.left, segments);
+        segments.add(node);
+        collect(node.right, segments);
+    }
+
+    int getLineNumber() {
+        if (lineNumberVersion != document.version) {
+            int line = 1 + lines(left);
+            for (Segment node = this; node.parent != null; node = node.parent) {
+                if (node.parent.right == node)
+                    line += lines(node.parent.left) + node.parent.lineCount;
+            }
+            lineNumber = line;
+            lineNumberVersion = document.version;
+        }
+        return lineNumber;
+    }
+}
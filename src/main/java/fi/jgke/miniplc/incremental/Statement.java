@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.incremental;
+
+import fi.jgke.miniplc.ast.Parser;
+import fi.jgke.miniplc.tokenizer.SymbolTable;
+import fi.jgke.miniplc.tokenizer.Token;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A top level statement of a {@link Document}, from its first token up to
+ * and including its semicolon.
+ *
+ * The tokens and syntax tree of a statement only depend on its text, so an
+ * edit elsewhere in the document keeps them as they are and only moves the
+ * statement. The last statement of a document may be unterminated, in which
+ * case its text runs to the end of the input and its tokens end with EOS.
+ */
+public class Statement {
+    private final List<Token> tokens = new ArrayList<>();
+    private String text;
+    private boolean lexingFailed;
+    private fi.jgke.miniplc.ast.Statement node;
+
+    /* position of the first token, the line relative to the segment */
+    Segment segment;
+    int line;
+    int column;
+
+    Statement(int line, int column) {
+        this.line = line;
+        this.column = column;
+    }
+
+    void add(Token token) {
+        tokens.add(token);
+    }
+
+    void lexingFailed() {
+        lexingFailed = true;
+    }
+
+    void close(String text) {
+        this.text = text;
+    }
+
+    /* Take the place of a statement with the same text */
+    void moveTo(Statement other) {
+        this.segment = other.segment;
+        this.line = other.line;
+        this.column = other.column;
+    }
+
+    void parse() {
+        if (lexingFailed)
+            return;
+        try {
+            node = consume();
+        } catch (RuntimeException e) {
+            node = null;
+        }
+    }
+
+    private fi.jgke.miniplc.ast.Statement consume() {
+        TokenQueue queue = TokenQueue.of(tokens.toArray(new Token[0]));
+        fi.jgke.miniplc.ast.Statement statement = new Parser(queue).parseStatement();
+        queue.getExpectedToken(TokenValue.SEMICOLON);
+        return statement;
+    }
+
+    fi.jgke.miniplc.ast.Statement getNode() {
+        return node;
+    }
+
+    boolean hasLexingFailed() {
+        return lexingFailed;
+    }
+
+    /**
+     * Whether the first token can start a statement at all. A statement
+     * which cannot ends the program when the whole document is parsed.
+     */
+    boolean isStatement() {
+        return !tokens.isEmpty() && Parser.startsStatement(tokens.get(0).getValue());
+    }
+
+    Token getFirstToken() {
+        return tokens.get(0);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<Token> getTokens() {
+        return Collections.unmodifiableList(tokens);
+    }
+
+    public int getLineNumber() {
+        return segment.getLineNumber() + line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public boolean isValid() {
+        return node != null;
+    }
+
+    /**
+     * The error lexing or parsing this statement on its own throws, or null
+     * if there is none. The error is created again on every call, so that its
+     * line number is current.
+     */
+    public RuntimeException getError() {
+        if (lexingFailed)
+            return lexingError();
+        if (node != null)
+            return null;
+        try {
+            consume();
+        } catch (RuntimeException e) {
+            return e;
+        }
+        return null;
+    }
+
+    private RuntimeException lexingError() {
+        Tokenizer tokenizer = new Tokenizer(text, getLineNumber(), new SymbolTable());
+        try {
+            while (tokenizer.nextToken().getValue() != TokenValue.EOS) ;
+        } catch (RuntimeException e) {
+            return e;
+        }
+        return null;
+    }
+}
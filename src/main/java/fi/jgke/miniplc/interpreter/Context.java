@@ -15,59 +15,79 @@
  */
 package fi.jgke.miniplc.interpreter;
 
-import fi.jgke.miniplc.exception.UndefinedVariableException;
-import fi.jgke.miniplc.exception.VariableAlreadyDefinedException;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * Variables and I/O of a running program.
+ *
+ * A checked syntax tree keeps its variables in slots, flat arrays for the
+ * whole run, whose indices were resolved from the lexical scopes before
+ * executing; see {@link fi.jgke.miniplc.ast.Resolver}. Nothing is looked up
+ * by name and loops push no frames; the grammar driven interpreter keeps its
+ * variables in a {@link FrameStack} instead. Integers and booleans are stored
+ * unboxed in a long, which leaves room for a value no integer has to mark
+ * an uninitialized variable, and strings are stored as they are.
+ */
 public class Context {
-    private final ArrayList<Map<String, Variable>> variables;
+    /**
+     * The value of an integer or boolean slot whose variable has no value.
+     */
+    public static final long UNSET = Long.MIN_VALUE;
+
+    /* an int or a boolean as 0 or 1, or UNSET */
+    private long[] values = new long[0];
+    private String[] strings = new String[0];
     private final InputOutput io;
 
     public Context(InputOutput io) {
-        this.variables = new ArrayList<>();
-        this.variables.add(new HashMap<>());
         this.io = io;
     }
 
-    public void addVariable(Variable variable) throws VariableAlreadyDefinedException {
-        if (variables.get(variables.size() - 1).containsKey(variable.getName())) {
-            throw new VariableAlreadyDefinedException(variable, getVariable(variable.getName(), variable.getLineNumber()));
-        }
-        variables.get(variables.size() - 1).put(variable.getName(), variable);
+    /**
+     * Make room for the given number of slots, keeping the variables in the
+     * slots there already.
+     */
+    public void allocateSlots(int count) {
+        if (count <= values.length)
+            return;
+        int previous = values.length;
+        values = Arrays.copyOf(values, count);
+        Arrays.fill(values, previous, count, UNSET);
+        strings = Arrays.copyOf(strings, count);
+    }
+
+    /**
+     * The int or boolean in a slot, or {@link #UNSET}.
+     */
+    public long getValue(int slot) {
+        return values[slot];
+    }
+
+    public void setInt(int slot, int value) {
+        values[slot] = value;
     }
 
-    public void updateVariable(Variable variable) throws UndefinedVariableException {
-        String name = variable.getName();
-        Map<String, Variable> map;
-        for (int i = variables.size() - 1; i >= 0; i--) {
-            map = variables.get(i);
-            if (map.containsKey(name)) {
-                map.put(name, variable);
-                return;
-            }
-        }
-        throw new UndefinedVariableException(variable.getLineNumber(), name);
+    public void setBool(int slot, boolean value) {
+        values[slot] = value ? 1 : 0;
     }
 
-    public Variable getVariable(String name, int linenumber) throws UndefinedVariableException {
-        Map<String, Variable> map;
-        for (int i = variables.size() - 1; i >= 0; i--) {
-            map = variables.get(i);
-            if (map.containsKey(name))
-                return map.get(name);
-        }
-        throw new UndefinedVariableException(linenumber, name);
+    /**
+     * The string in a slot, or null if it is not set.
+     */
+    public String getString(int slot) {
+        return strings[slot];
     }
 
-    public void pushFrame() {
-        variables.add(new HashMap<>());
+    public void setString(int slot, String value) {
+        strings[slot] = value;
     }
 
-    public void popFrame() {
-        variables.remove(variables.size() - 1);
+    /**
+     * Leave the variable in a slot without a value.
+     */
+    public void unset(int slot) {
+        values[slot] = UNSET;
+        strings[slot] = null;
     }
 
     public void print(Object object) {
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.interpreter;
+
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.closure.ClosureCompiler;
+import fi.jgke.miniplc.jvm.ClassCompiler;
+import fi.jgke.miniplc.specializing.NodeBuilder;
+import fi.jgke.miniplc.tiered.TieredCompiler;
+
+/**
+ * The ways a checked syntax tree can be executed.
+ */
+public enum Engine {
+    /**
+     * Evaluate the syntax tree as it is.
+     */
+    TREE {
+        @Override
+        public Executable prepare(Block program, int slotCount) {
+            return program;
+        }
+    },
+    /**
+     * Execute nodes built by {@link NodeBuilder}, which specialize
+     * themselves on first execution.
+     */
+    SPECIALIZING {
+        @Override
+        public Executable prepare(Block program, int slotCount) {
+            return NodeBuilder.build(program);
+        }
+    },
+    /**
+     * Compile the tree into lambdas with {@link ClosureCompiler}.
+     */
+    CLOSURE {
+        @Override
+        public Executable prepare(Block program, int slotCount) {
+            return ClosureCompiler.compile(program);
+        }
+    },
+    /**
+     * Compile the tree into a JVM class with {@link ClassCompiler}, which
+     * HotSpot compiles further into machine code.
+     */
+    JVM {
+        @Override
+        public Executable prepare(Block program, int slotCount) {
+            return ClassCompiler.compile(program, slotCount);
+        }
+    },
+    /**
+     * Interpret lambdas with {@link TieredCompiler}, moving each hot loop
+     * into a JVM class compiled in the background.
+     */
+    TIERED {
+        @Override
+        public Executable prepare(Block program, int slotCount) {
+            return TieredCompiler.compile(program, slotCount);
+        }
+    };
+
+    /**
+     * Turn a program which has been checked by a
+     * {@link fi.jgke.miniplc.ast.TypeChecker}, and whose variables need the
+     * given number of slots, into what this engine executes. Every engine
+     * prints the same output and throws the same errors, in the same order,
+     * as the syntax tree.
+     */
+    public abstract Executable prepare(Block program, int slotCount);
+}
@@ -15,20 +15,92 @@
  */
 package fi.jgke.miniplc.interpreter;
 
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Parser;
+import fi.jgke.miniplc.ast.TypeChecker;
 import fi.jgke.miniplc.exception.RuntimeException;
-import fi.jgke.miniplc.builder.Builder;
 import fi.jgke.miniplc.tokenizer.TokenQueue;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+
 public class Executor {
 
     private final String script;
+    private final Engine engine;
 
     public Executor(String script) {
+        this(script, Engine.TREE);
+    }
+
+    public Executor(String script, Engine engine) {
         this.script = script;
+        this.engine = engine;
+    }
+
+    /**
+     * Lex and parse a script into a program which can be run many times.
+     * Executing a script runs the statements before a token which cannot
+     * start one and only then fails, but compiling throws every syntax error
+     * before anything runs. Type errors are thrown here too.
+     */
+    public static Program compile(String script) throws RuntimeException {
+        return compile(script, Engine.TREE);
+    }
+
+    /**
+     * Compile a script into a program which is run by the given engine.
+     */
+    public static Program compile(String script, Engine engine) throws RuntimeException {
+        TokenQueue queue = new TokenQueue(script);
+        Parser parser = new Parser(queue);
+        Block program = parser.parseProgram();
+        parser.parseEnd();
+        TypeChecker checker = new TypeChecker();
+        checker.check(program);
+        return new Program(program, engine.prepare(program, checker.getSlotCount()), checker.getSlotCount());
     }
 
     public void execute(InputOutput io) throws RuntimeException {
         TokenQueue queue = new TokenQueue(script);
-        Builder.parseAndExecute(queue, new Context(io));
+        parseAndExecute(queue, new Context(io), engine);
+    }
+
+    /**
+     * Execute a script which is lexed from the reader as it is parsed, so the
+     * source text is not copied into a string first. The syntax tree of the
+     * whole program is still built and checked before it runs, so the memory
+     * needed grows with the size of the script.
+     */
+    public static void execute(Reader script, InputOutput io) throws RuntimeException {
+        TokenQueue queue = new TokenQueue(script);
+        parseAndExecute(queue, new Context(io), Engine.TREE);
+    }
+
+    /**
+     * Execute a UTF-8 script which is lexed straight from a memory mapping of
+     * the file, without copying the source into the heap. As with a reader,
+     * the whole program is parsed and checked before it runs.
+     */
+    public static void execute(FileChannel script, InputOutput io) throws IOException, RuntimeException {
+        TokenQueue queue = new TokenQueue(script);
+        parseAndExecute(queue, new Context(io), Engine.TREE);
+    }
+
+    /**
+     * Parse the whole program into a syntax tree, check it and execute it.
+     * The end of
+     * the input is only checked after executing, so the statements before a
+     * token which cannot start a statement are run first.
+     */
+    private static void parseAndExecute(TokenQueue queue, Context context, Engine engine) {
+        Parser parser = new Parser(queue);
+        Block program = parser.parseProgram();
+        TypeChecker checker = new TypeChecker();
+        checker.check(program);
+        context.allocateSlots(checker.getSlotCount());
+        engine.prepare(program, checker.getSlotCount()).execute(context);
+        parser.parseEnd();
     }
 }
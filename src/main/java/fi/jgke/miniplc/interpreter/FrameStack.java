@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.interpreter;
+
+import fi.jgke.miniplc.exception.UndefinedVariableException;
+import fi.jgke.miniplc.exception.VariableAlreadyDefinedException;
+import fi.jgke.miniplc.tokenizer.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Variables of the grammar driven interpreter, which resolves names at run
+ * time, over the {@link Context} it does its I/O through.
+ *
+ * Each frame is an array indexed by the symbols of a {@link SymbolTable}, so
+ * looking up a variable is an array load per frame instead of hashing its
+ * name. Frames are recycled: popping one clears its array in place and the
+ * next frame pushed at the same depth reuses it, so a loop allocates no
+ * frames after its first iteration. A frame is only cleared if a variable
+ * was declared in it, so a loop body which declares nothing pays for no more
+ * than moving the depth up and down.
+ */
+public class FrameStack {
+    private static final Variable[] EMPTY_FRAME = new Variable[0];
+
+    private final Context context;
+    private final SymbolTable symbols;
+    /* every frame pushed so far, of which those up to depth are in use */
+    private final ArrayList<Variable[]> variables = new ArrayList<>();
+    private int depth;
+    /* whether a variable was declared in the frame at each depth */
+    private boolean[] declared = new boolean[8];
+
+    public FrameStack(Context context) {
+        this(context, new SymbolTable());
+    }
+
+    /**
+     * Frames for a program whose identifiers were interned into the given
+     * symbols.
+     */
+    public FrameStack(Context context, SymbolTable symbols) {
+        this.context = context;
+        this.symbols = symbols;
+        variables.add(EMPTY_FRAME);
+    }
+
+    public Context getContext() {
+        return context;
+    }
+
+    /**
+     * Get the symbol of an identifier in these frames. The symbol from the
+     * token is used as is if it came from the same symbol table, which is the
+     * case when the name is the very same interned string.
+     */
+    public int resolve(int symbol, String name) {
+        if (symbol >= 0 && symbol < symbols.size() && symbols.getName(symbol) == name)
+            return symbol;
+        return symbols.intern(name);
+    }
+
+    private Variable[] put(Variable[] frame, int symbol, Variable variable) {
+        if (symbol >= frame.length)
+            frame = Arrays.copyOf(frame, Math.max(symbol + 1, symbols.size()));
+        frame[symbol] = variable;
+        return frame;
+    }
+
+    private static Variable get(Variable[] frame, int symbol) {
+        return symbol < frame.length ? frame[symbol] : null;
+    }
+
+    public void addVariable(Variable variable) throws VariableAlreadyDefinedException {
+        addVariable(symbols.intern(variable.getName()), variable);
+    }
+
+    public void addVariable(int symbol, Variable variable) throws VariableAlreadyDefinedException {
+        Variable existing = get(variables.get(depth), symbol);
+        if (existing != null) {
+            throw new VariableAlreadyDefinedException(variable, existing);
+        }
+        variables.set(depth, put(variables.get(depth), symbol, variable));
+        declared[depth] = true;
+    }
+
+    public void updateVariable(Variable variable) throws UndefinedVariableException {
+        /* a name which was never interned cannot have been declared */
+        int symbol = symbols.find(variable.getName());
+        if (symbol < 0)
+            throw new UndefinedVariableException(variable.getLineNumber(), variable.getName());
+        updateVariable(symbol, variable);
+    }
+
+    public void updateVariable(int symbol, Variable variable) throws UndefinedVariableException {
+        for (int i = depth; i >= 0; i--) {
+            Variable[] frame = variables.get(i);
+            if (get(frame, symbol) != null) {
+                frame[symbol] = variable;
+                return;
+            }
+        }
+        throw new UndefinedVariableException(variable.getLineNumber(), variable.getName());
+    }
+
+    public Variable getVariable(String name, int linenumber) throws UndefinedVariableException {
+        int symbol = symbols.find(name);
+        if (symbol < 0)
+            throw new UndefinedVariableException(linenumber, name);
+        return getVariable(symbol, linenumber);
+    }
+
+    public Variable getVariable(int symbol, int linenumber) throws UndefinedVariableException {
+        for (int i = depth; i >= 0; i--) {
+            Variable variable = get(variables.get(i), symbol);
+            if (variable != null)
+                return variable;
+        }
+        throw new UndefinedVariableException(linenumber, symbols.getName(symbol));
+    }
+
+    public void pushFrame() {
+        depth++;
+        if (depth == variables.size()) {
+            variables.add(EMPTY_FRAME);
+            if (depth == declared.length)
+                declared = Arrays.copyOf(declared, depth * 2);
+        }
+    }
+
+    public void popFrame() {
+        if (declared[depth]) {
+            Arrays.fill(variables.get(depth), null);
+            declared[depth] = false;
+        }
+        depth--;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.interpreter;
+
+import fi.jgke.miniplc.exception.IntegerParseError;
+import fi.jgke.miniplc.exception.OperationNotSupportedException;
+import fi.jgke.miniplc.exception.TypeException;
+import fi.jgke.miniplc.exception.UnsupportedInputException;
+import fi.jgke.miniplc.tokenizer.Token;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+
+/**
+ * The semantics of the operators and of reading input, shared by every way
+ * of executing a program.
+ */
+public class Operations {
+    /* Negate a boolean */
+    public static Variable not(Token not, Variable variable) {
+        if (!variable.getType().equals(VariableType.BOOL)) {
+            throw new OperationNotSupportedException(not);
+        }
+        Boolean value = (Boolean) variable.getValue();
+        return new Variable(VariableType.BOOL, !value);
+    }
+
+    /* Handle a binary operation such as 1 + 2 or "foo" + "bar" */
+    public static Variable binary(Variable left, Token operator, Variable right) {
+        if (!left.getType().equals(right.getType())) {
+            throw new TypeException(operator.getLineNumber(), left.getType(), right.getType());
+        }
+
+        if (left.getType().equals(VariableType.INT)) {
+            return integerOperation(operator, (Integer) left.getValue(), (Integer) right.getValue());
+        } else if (left.getType().equals(VariableType.STRING)) {
+            return stringOperation(operator, (String) left.getValue(), (String) right.getValue());
+        } else {
+            return booleanOperation(operator, (Boolean) left.getValue(), (Boolean) right.getValue());
+        }
+    }
+
+    private static Variable integerOperation(Token operator, Integer left, Integer right) {
+        TokenValue op = operator.getValue();
+        if (op.equals(TokenValue.PLUS)) return new Variable(VariableType.INT, left + right);
+        else if (op.equals(TokenValue.MINUS)) return new Variable(VariableType.INT, left - right);
+        else if (op.equals(TokenValue.TIMES)) return new Variable(VariableType.INT, left * right);
+        else if (op.equals(TokenValue.DIVIDE)) return new Variable(VariableType.INT, left / right);
+        else if (op.equals(TokenValue.LESS_THAN)) return new Variable(VariableType.BOOL, left < right);
+        else if (op.equals(TokenValue.EQUALS))
+            return new Variable(VariableType.BOOL, left.equals(right));
+        throw new OperationNotSupportedException(VariableType.INT, operator);
+    }
+
+    private static Variable stringOperation(Token operator, String left, String right) {
+        TokenValue op = operator.getValue();
+        if (op.equals(TokenValue.PLUS)) return new Variable(VariableType.STRING, left + right);
+        else if (op.equals(TokenValue.EQUALS)) return new Variable(VariableType.BOOL, left.equals(right));
+        throw new OperationNotSupportedException(VariableType.STRING, operator);
+    }
+
+    private static Variable booleanOperation(Token operator, Boolean left, Boolean right) {
+        TokenValue op = operator.getValue();
+        if (op.equals(TokenValue.AND)) return new Variable(VariableType.BOOL, left && right);
+        else if (op.equals(TokenValue.EQUALS)) return new Variable(VariableType.BOOL, left.equals(right));
+        throw new OperationNotSupportedException(VariableType.BOOL, operator);
+    }
+
+    /**
+     * Read a new value for the variable from the input.
+     */
+    public static Variable read(Context context, Variable variable, String name, int linenumber) {
+        return read(context, variable.getType(), name, linenumber);
+    }
+
+    /**
+     * Read a new value for a variable of the given type from the input.
+     */
+    public static Variable read(Context context, VariableType type, String name, int linenumber) {
+        /* Why, MiniPL ;__;
+         * read :: () -> Int & String
+         */
+        if (type.equals(VariableType.INT)) {
+            return readIntegerVariable(context, linenumber, name);
+        } else if (type.equals(VariableType.STRING)) {
+            return readStringVariable(context, linenumber, name);
+        } else {
+            throw new UnsupportedInputException(linenumber);
+        }
+    }
+
+    private static Variable readIntegerVariable(Context context, int linenumber, String name) {
+        Variable variable;
+        String input = context.readLine();
+        try {
+            Integer value = Integer.parseInt(input);
+            variable = new Variable(name, linenumber, VariableType.INT, value);
+        } catch (NumberFormatException ignored) {
+            throw new IntegerParseError(linenumber);
+        }
+        return variable;
+    }
+
+    private static Variable readStringVariable(Context context, int linenumber, String name) {
+        Variable variable;
+        String input = context.readLine();
+        variable = new Variable(name, linenumber, VariableType.STRING, input);
+        return variable;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.interpreter;
+
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.exception.RuntimeException;
+
+/**
+ * A lexed and parsed program, which can be run any number of times.
+ *
+ * Nothing of a run is kept in the program: each run gets a fresh
+ * {@link Context} with its own slots, and neither the syntax tree nor the
+ * code an {@link Engine} prepared from it is changed after compiling. A program can
+ * therefore be run on many threads at once.
+ */
+public final class Program {
+    private final Block statements;
+    private final Executable executable;
+    private final int slotCount;
+
+    Program(Block statements, Executable executable, int slotCount) {
+        this.statements = statements;
+        this.executable = executable;
+        this.slotCount = slotCount;
+    }
+
+    public Block getStatements() {
+        return statements;
+    }
+
+    /**
+     * The number of slots the variables of the program need.
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public void run(InputOutput io) throws RuntimeException {
+        Context context = new Context(io);
+        context.allocateSlots(slotCount);
+        executable.execute(context);
+    }
+}
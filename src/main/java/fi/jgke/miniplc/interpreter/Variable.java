@@ -30,11 +30,15 @@ public class Variable {
                 || (type.equals(VariableType.BOOL) && value instanceof Boolean);
     }
 
-    public Variable(VariableType type, Object value) {
-        this.lineNumber = 0;
-        this.name = null;
+    private Variable(VariableType type, Object value, String name, int lineNumber) {
+        this.lineNumber = lineNumber;
+        this.name = name;
         this.type = type;
         this.value = value;
+    }
+
+    public Variable(VariableType type, Object value) {
+        this(type, value, null, 0);
         checkType(type, value);
     }
 
@@ -45,20 +49,35 @@ public class Variable {
     }
 
     public Variable(String name, int lineNumber, VariableType type) {
-        this.lineNumber = lineNumber;
-        this.name = name;
-        this.type = type;
-        this.value = null;
+        this(type, null, name, lineNumber);
     }
 
     public Variable(String name, int lineNumber, VariableType type, Object value) {
-        this.lineNumber = lineNumber;
-        this.name = name;
-        this.type = type;
-        this.value = value;
+        this(type, value, name, lineNumber);
         checkType(type, value);
     }
 
+    /**
+     * A variable with a value which is already known to be of its type, for
+     * example because the program was type checked. The type is not checked
+     * again.
+     */
+    public static Variable trusted(String name, int lineNumber, VariableType type, Object value) {
+        return new Variable(type, value, name, lineNumber);
+    }
+
+    public static Variable ofInt(int value) {
+        return new Variable(VariableType.INT, value, null, 0);
+    }
+
+    public static Variable ofString(String value) {
+        return new Variable(VariableType.STRING, value, null, 0);
+    }
+
+    public static Variable ofBool(boolean value) {
+        return new Variable(VariableType.BOOL, value, null, 0);
+    }
+
     public String getName() {
         return name;
     }
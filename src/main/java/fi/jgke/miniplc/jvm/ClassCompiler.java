@@ -0,0 +1,541 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.jvm;
+
+import fi.jgke.miniplc.ast.Assert;
+import fi.jgke.miniplc.ast.Assign;
+import fi.jgke.miniplc.ast.Binary;
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.For;
+import fi.jgke.miniplc.ast.Literal;
+import fi.jgke.miniplc.ast.Print;
+import fi.jgke.miniplc.ast.Read;
+import fi.jgke.miniplc.ast.Statement;
+import fi.jgke.miniplc.ast.Unary;
+import fi.jgke.miniplc.ast.VarDecl;
+import fi.jgke.miniplc.ast.VarRef;
+import fi.jgke.miniplc.ast.Visitor;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fi.jgke.miniplc.jvm.MethodWriter.*;
+
+/**
+ * Compiles a program into a JVM class which runs it in a single method,
+ * with each variable in a local of its own. The class is loaded as a hidden
+ * class where the JVM has them, and otherwise by a class loader of its own,
+ * so it can be unloaded once the program is no longer used.
+ *
+ * A single for loop can also be compiled into a {@link CompiledLoop}, which
+ * takes over a loop the tree has started.
+ */
+public class ClassCompiler implements Visitor<Void> {
+    /**
+     * HotSpot does not compile methods with more bytecode than this, and a
+     * program which would need more is executed as a tree instead.
+     */
+    public static final int HUGE_METHOD_LIMIT = 8000;
+
+    /* jumps are encoded in 16 bits */
+    private static final int MAXIMUM_METHOD_SIZE = 32767;
+
+    static final String NAME = "fi/jgke/miniplc/jvm/CompiledProgram";
+    private static final String LOOP_NAME = "fi/jgke/miniplc/jvm/ResumedLoop";
+    private static final String LOOP_CLASS = "fi/jgke/miniplc/jvm/CompiledLoop";
+    private static final String OBJECT_CLASS = "java/lang/Object";
+    private static final String STRING_CLASS = "java/lang/String";
+    private static final String CONTEXT_CLASS = "fi/jgke/miniplc/interpreter/Context";
+    private static final String EXECUTABLE_CLASS = "fi/jgke/miniplc/interpreter/Executable";
+
+    /* Java 8 */
+    private static final int VERSION = 52;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int CONTEXT = 1;
+    /* the int parameters of a compiled loop */
+    private static final int NEXT = 2;
+    private static final int LAST = 3;
+
+    /* Lookup.defineHiddenClass and an empty array of its options, which
+     * only exist from Java 15 on */
+    private static final Method DEFINE_HIDDEN_CLASS;
+    private static final Object NO_OPTIONS;
+
+    static {
+        Method method = null;
+        Object options = null;
+        try {
+            Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            options = Array.newInstance(option, 0);
+            method = MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                    byte[].class, boolean.class, options.getClass());
+        } catch (ReflectiveOperationException ignored) {
+        }
+        DEFINE_HIDDEN_CLASS = method;
+        NO_OPTIONS = options;
+    }
+
+    private final ConstantPool pool = new ConstantPool();
+    private final String name;
+    private final MethodWriter code;
+    /* loads the variables declared outside of a compiled loop */
+    private final MethodWriter entry = new MethodWriter(pool);
+    /* the variable which is currently in each slot */
+    private final Local[] locals;
+    private final List<Local> outer = new ArrayList<>();
+
+    private static class Local {
+        final int slot;
+        final int index;
+        final VariableType type;
+        /* declared without a value or outside of a compiled loop, so it
+         * may be read before it is set */
+        final boolean checked;
+
+        Local(int slot, int index, VariableType type, boolean checked) {
+            this.slot = slot;
+            this.index = index;
+            this.type = type;
+            this.checked = checked;
+        }
+    }
+
+    private ClassCompiler(String name, int slotCount) {
+        this.name = name;
+        this.code = new MethodWriter(pool, name, CONTEXT_CLASS);
+        this.locals = new Local[slotCount];
+    }
+
+    /**
+     * Compile a checked program whose variables need the given number of
+     * slots. A program too large to be compiled by HotSpot is returned as
+     * it is.
+     */
+    public static Executable compile(Block program, int slotCount) {
+        ClassCompiler compiler = new ClassCompiler(NAME, slotCount);
+        compiler.block(program);
+        compiler.code.op(RETURN, 0);
+        if (compiler.code.size() > HUGE_METHOD_LIMIT)
+            return program;
+
+        try {
+            return (Executable) compiler.define(compiler.toBytes(EXECUTABLE_CLASS, "execute",
+                    "(L" + CONTEXT_CLASS + ";)V", false)).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Compiled program could not be loaded", e);
+        }
+    }
+
+    /**
+     * Compile a for loop of a checked program whose variables need the
+     * given number of slots. A loop too large to be compiled by HotSpot is
+     * not compiled, and null is returned.
+     */
+    public static CompiledLoop compileLoop(For loop, int slotCount) {
+        ClassCompiler compiler = new ClassCompiler(LOOP_NAME, slotCount);
+        compiler.code.intParameter();
+        compiler.code.intParameter();
+        compiler.loop(loop, NEXT, LAST);
+        compiler.storeOuter();
+        compiler.code.op(RETURN, 0);
+        if (compiler.code.size() > HUGE_METHOD_LIMIT)
+            return null;
+
+        try {
+            return (CompiledLoop) compiler.define(compiler.toBytes(LOOP_CLASS, "resume",
+                    "(L" + CONTEXT_CLASS + ";II)V", false)).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Compiled loop could not be loaded", e);
+        }
+    }
+
+    private Class<?> define(byte[] bytes) throws ReflectiveOperationException {
+        if (DEFINE_HIDDEN_CLASS == null)
+            return new Loader(name, bytes).loadClass(name.replace('/', '.'));
+        try {
+            Object lookup = DEFINE_HIDDEN_CLASS.invoke(MethodHandles.lookup(), bytes, true, NO_OPTIONS);
+            return ((MethodHandles.Lookup) lookup).lookupClass();
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /* Loads the one class, for JVMs without hidden classes */
+    private static class Loader extends ClassLoader {
+        private final String name;
+        private final byte[] bytes;
+
+        Loader(String name, byte[] bytes) {
+            super(ClassCompiler.class.getClassLoader());
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!name.equals(this.name.replace('/', '.')))
+                throw new ClassNotFoundException(name);
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Compile a checked program into a class file, whose main method runs
+     * the program as {@link Support#main(Executable)} does. The class needs
+     * this interpreter for {@link Support} and what it uses, which
+     * {@link JarWriter} finds.
+     *
+     * @throws IllegalArgumentException if the program is too large for a
+     *                                  single method
+     */
+    public static byte[] compileMain(Block program, int slotCount) {
+        ClassCompiler compiler = new ClassCompiler(NAME, slotCount);
+        compiler.block(program);
+        compiler.code.op(RETURN, 0);
+        if (compiler.code.size() > MAXIMUM_METHOD_SIZE)
+            throw new IllegalArgumentException("Program is too large to compile: " + compiler.code.size()
+                    + " bytes of code, at most " + MAXIMUM_METHOD_SIZE + " are supported");
+        return compiler.toBytes(EXECUTABLE_CLASS, "execute", "(L" + CONTEXT_CLASS + ";)V", true);
+    }
+
+    /* A class implementing the interface with the compiled code as its one
+     * method, and the main method of a program if asked for */
+    private byte[] toBytes(String interfaceName, String method, String descriptor, boolean withMain) {
+        MethodWriter constructor = new MethodWriter(pool, name);
+        constructor.aload(0);
+        constructor.invoke(INVOKESPECIAL, OBJECT_CLASS, "<init>", "()V", -1);
+        constructor.op(RETURN, 0);
+
+        MethodWriter main = new MethodWriter(pool, "[L" + STRING_CLASS + ";");
+        main.newInstance(NAME);
+        main.op(DUP, 1);
+        main.invoke(INVOKESPECIAL, NAME, "<init>", "()V", -1);
+        main.invoke(INVOKESTATIC, Support.NAME, "main", "(L" + EXECUTABLE_CLASS + ";)V", -1);
+        main.op(RETURN, 0);
+
+        try {
+            /* the methods add to the constant pool, which comes first */
+            ByteArrayOutputStream methods = new ByteArrayOutputStream();
+            DataOutputStream methodsOut = new DataOutputStream(methods);
+            constructor.writeTo(methodsOut, ACC_PUBLIC, "<init>", "()V");
+            code.writeTo(methodsOut, ACC_PUBLIC, method, descriptor, entry);
+            if (withMain)
+                main.writeTo(methodsOut, ACC_PUBLIC | ACC_STATIC, "main", "([L" + STRING_CLASS + ";)V");
+            int thisClass = pool.classRef(name);
+            int superClass = pool.classRef(OBJECT_CLASS);
+            int implemented = pool.classRef(interfaceName);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(implemented);
+            out.writeShort(0);
+            out.writeShort(withMain ? 3 : 2);
+            methods.writeTo(out);
+            out.writeShort(0);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void block(Block block) {
+        for (Statement statement : block.getStatements())
+            statement.accept(this);
+    }
+
+    /* The variable in a slot. In a compiled loop, a variable declared
+     * outside of it is loaded from the context on entry, and may not be set */
+    private Local local(int slot, VariableType type) {
+        Local local = locals[slot];
+        if (local != null)
+            return local;
+        boolean string = type == VariableType.STRING;
+        local = new Local(slot, code.local(string ? OBJECT : LONG, STRING_CLASS), type, true);
+        entry.aload(CONTEXT);
+        entry.pushInt(slot);
+        if (string) {
+            entry.invoke(INVOKEVIRTUAL, CONTEXT_CLASS, "getString", "(I)L" + STRING_CLASS + ";", -1);
+            entry.astore(local.index);
+        } else {
+            entry.invoke(INVOKEVIRTUAL, CONTEXT_CLASS, "getValue", "(I)J", 0);
+            entry.lstore(local.index);
+        }
+        locals[slot] = local;
+        outer.add(local);
+        return local;
+    }
+
+    /* Store the variables loaded on entry back into the context */
+    private void storeOuter() {
+        for (Local local : outer) {
+            code.aload(CONTEXT);
+            code.pushInt(local.slot);
+            if (local.type == VariableType.STRING) {
+                code.aload(local.index);
+                code.invoke(INVOKEVIRTUAL, CONTEXT_CLASS, "setString", "(IL" + STRING_CLASS + ";)V", -3);
+            } else {
+                code.lload(local.index);
+                code.invoke(INVOKESTATIC, Support.NAME, "store", "(L" + CONTEXT_CLASS + ";IJ)V", -4);
+            }
+        }
+    }
+
+    private void store(Local local) {
+        if (local.type == VariableType.STRING) {
+            code.astore(local.index);
+        } else if (local.checked) {
+            code.op(I2L, 1);
+            code.lstore(local.index);
+        } else {
+            code.istore(local.index);
+        }
+    }
+
+    @Override
+    public Void visit(VarDecl node) {
+        Expression value = node.getValue();
+        boolean string = node.getType() == VariableType.STRING;
+        Local local = new Local(node.getSlot(), code.local(string ? OBJECT : value == null ? LONG : INT, STRING_CLASS),
+                node.getType(), value == null);
+        if (value == null) {
+            if (string) {
+                code.pushNull();
+                code.astore(local.index);
+            } else {
+                code.pushLong(Context.UNSET);
+                code.lstore(local.index);
+            }
+        } else {
+            value.accept(this);
+            store(local);
+        }
+        locals[node.getSlot()] = local;
+        return null;
+    }
+
+    @Override
+    public Void visit(Assign node) {
+        node.getValue().accept(this);
+        store(local(node.getSlot(), node.getValue().getType()));
+        return null;
+    }
+
+    @Override
+    public Void visit(For node) {
+        int counter = code.local(INT, null);
+        int last = code.local(INT, null);
+        node.getStart().accept(this);
+        code.istore(counter);
+        /* For.exclusiveEnd, inlined so that a compiled jar does not need
+         * the syntax tree */
+        node.getEnd().accept(this);
+        code.pushInt(1);
+        code.op(IADD, -1);
+        code.istore(last);
+        loop(node, counter, last);
+        return null;
+    }
+
+    /* The loop from the counter up to last exclusive, which are ints */
+    private void loop(For node, int counter, int last) {
+        Local variable = local(node.getSlot(), VariableType.INT);
+        code.iload(counter);
+        code.iload(last);
+        int skip = code.jump(IF_ICMPGE, 0);
+        int loop = code.target();
+        code.iload(counter);
+        store(variable);
+        block(node.getBody());
+        code.increment(counter);
+        code.iload(counter);
+        code.iload(last);
+        code.jump(IF_ICMPLT, loop);
+
+        code.patch(skip, code.target());
+        code.iload(last);
+        store(variable);
+    }
+
+    @Override
+    public Void visit(Print node) {
+        Expression value = node.getValue();
+        code.aload(CONTEXT);
+        value.accept(this);
+        if (value.getType() == VariableType.INT)
+            code.invoke(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", 0);
+        else if (value.getType() == VariableType.BOOL)
+            code.invoke(INVOKESTATIC, "java/lang/Boolean", "valueOf", "(Z)Ljava/lang/Boolean;", 0);
+        code.invoke(INVOKEVIRTUAL, CONTEXT_CLASS, "print", "(L" + OBJECT_CLASS + ";)V", -2);
+        return null;
+    }
+
+    @Override
+    public Void visit(Read node) {
+        String descriptor = "(L" + CONTEXT_CLASS + ";L" + STRING_CLASS + ";I)";
+        switch (node.getType()) {
+            case INT:
+                code.aload(CONTEXT);
+                code.pushString(node.getName());
+                code.pushInt(node.getLineNumber());
+                code.invoke(INVOKESTATIC, Support.NAME, "readInt", descriptor + "I", -2);
+                break;
+            case STRING:
+                code.aload(CONTEXT);
+                code.pushString(node.getName());
+                code.pushInt(node.getLineNumber());
+                code.invoke(INVOKESTATIC, Support.NAME, "readString", descriptor + "L" + STRING_CLASS + ";", -2);
+                break;
+            default:
+                code.pushInt(node.getLineNumber());
+                code.invoke(INVOKESTATIC, Support.NAME, "readBool", "(I)V", -1);
+                return null;
+        }
+        store(local(node.getSlot(), node.getType()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Assert node) {
+        node.getCondition().accept(this);
+        code.pushInt(node.getLineNumber());
+        code.invoke(INVOKESTATIC, Support.NAME, "assertion", "(II)V", -2);
+        return null;
+    }
+
+    @Override
+    public Void visit(Binary node) {
+        if (node.isRightFirst()) {
+            node.getRight().accept(this);
+            node.getLeft().accept(this);
+            code.op(SWAP, 0);
+        } else {
+            node.getLeft().accept(this);
+            node.getRight().accept(this);
+        }
+
+        VariableType type = node.getLeft().getType();
+        switch (node.getOperator().getValue()) {
+            case PLUS:
+                if (type == VariableType.STRING)
+                    code.invoke(INVOKEVIRTUAL, STRING_CLASS, "concat", "(L" + STRING_CLASS + ";)L" + STRING_CLASS + ";", -1);
+                else
+                    code.op(IADD, -1);
+                break;
+            case MINUS:
+                code.op(ISUB, -1);
+                break;
+            case TIMES:
+                code.op(IMUL, -1);
+                break;
+            case DIVIDE:
+                code.op(IDIV, -1);
+                break;
+            case AND:
+                code.op(IAND, -1);
+                break;
+            /* comparisons are done without jumping, so that the stack is
+             * empty at every jump target: compare gives -1, 0 or 1 */
+            case LESS_THAN:
+                code.invoke(INVOKESTATIC, "java/lang/Integer", "compare", "(II)I", -1);
+                code.pushInt(31);
+                code.op(IUSHR, -1);
+                break;
+            case EQUALS:
+                if (type == VariableType.STRING) {
+                    code.invoke(INVOKEVIRTUAL, STRING_CLASS, "equals", "(L" + OBJECT_CLASS + ";)Z", -1);
+                    break;
+                }
+                code.invoke(INVOKESTATIC, "java/lang/Integer", "compare", "(II)I", -1);
+                code.pushInt(1);
+                code.op(IAND, -1);
+                code.pushInt(1);
+                code.op(IXOR, -1);
+                break;
+            default:
+                throw new IllegalStateException("Operator was not type checked: " + node.getOperator());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Unary node) {
+        node.getOperand().accept(this);
+        code.pushInt(1);
+        code.op(IXOR, -1);
+        return null;
+    }
+
+    @Override
+    public Void visit(Literal node) {
+        Object value = node.getValue().getValue();
+        if (value instanceof String)
+            code.pushString((String) value);
+        else if (value instanceof Boolean)
+            code.pushInt((Boolean) value ? 1 : 0);
+        else
+            code.pushInt((Integer) value);
+        return null;
+    }
+
+    @Override
+    public Void visit(VarRef node) {
+        Local local = local(node.getSlot(), node.getType());
+        if (local.type == VariableType.STRING) {
+            code.aload(local.index);
+            if (!local.checked)
+                return null;
+            code.pushString(node.getName());
+            code.pushInt(node.getDeclarationLine());
+            code.invoke(INVOKESTATIC, Support.NAME, "checkString",
+                    "(L" + STRING_CLASS + ";L" + STRING_CLASS + ";I)L" + STRING_CLASS + ";", -2);
+        } else if (local.checked) {
+            code.lload(local.index);
+            code.pushString(node.getName());
+            code.pushInt(node.getDeclarationLine());
+            code.invoke(INVOKESTATIC, Support.NAME, local.type == VariableType.INT ? "checkInt" : "checkBool",
+                    "(JL" + STRING_CLASS + ";I)I", -3);
+        } else {
+            code.iload(local.index);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.jvm;
+
+import fi.jgke.miniplc.interpreter.Context;
+
+/**
+ * A for loop compiled by {@link ClassCompiler#compileLoop}, which finishes
+ * a loop that was started elsewhere.
+ */
+public interface CompiledLoop {
+    /**
+     * Run the iterations from next up to last exclusive, with the variables
+     * of the loop in the context, and leave the loop variable at last like
+     * a finished loop does.
+     */
+    void resume(Context context, int next, int last);
+}
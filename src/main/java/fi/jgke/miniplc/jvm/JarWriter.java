@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.jvm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes a class from {@link ClassCompiler#compileMain} into a runnable jar.
+ *
+ * The jar also gets the classes of this interpreter which the program needs
+ * at run time: every class named in the constant pool of the program, of
+ * those classes and so on. That is {@link Support} and the few classes for
+ * input, output and errors, but nothing of the lexer, parser or checker.
+ */
+public class JarWriter {
+    private static final Pattern CLASS_NAME = Pattern.compile("fi/jgke/miniplc/[\\w/$]+");
+
+    private JarWriter() {
+    }
+
+    public static void write(byte[] program, OutputStream output) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, ClassCompiler.NAME.replace('/', '.'));
+
+        try (JarOutputStream jar = new JarOutputStream(output, manifest)) {
+            for (Map.Entry<String, byte[]> entry : classes(program).entrySet()) {
+                jar.putNextEntry(new JarEntry(entry.getKey() + ".class"));
+                jar.write(entry.getValue());
+                jar.closeEntry();
+            }
+        }
+    }
+
+    /* The program and the classes it needs, by name */
+    static Map<String, byte[]> classes(byte[] program) throws IOException {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put(ClassCompiler.NAME, program);
+        Deque<byte[]> pending = new ArrayDeque<>();
+        pending.add(program);
+        while (!pending.isEmpty()) {
+            for (String name : referencedNames(pending.remove())) {
+                if (classes.containsKey(name))
+                    continue;
+                byte[] bytes = read(name);
+                if (bytes == null)
+                    continue;
+                classes.put(name, bytes);
+                pending.add(bytes);
+            }
+        }
+        return classes;
+    }
+
+    private static byte[] read(String name) throws IOException {
+        try (InputStream input = JarWriter.class.getResourceAsStream("/" + name + ".class")) {
+            if (input == null)
+                return null;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = input.read(buffer)) > 0)
+                bytes.write(buffer, 0, count);
+            return bytes.toByteArray();
+        }
+    }
+
+    /* The names of our classes in the strings of a class file, both as
+     * classes and within descriptors */
+    private static Set<String> referencedNames(byte[] classFile) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(classFile));
+        input.skipBytes(8);
+        int count = input.readUnsignedShort();
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 1; i < count; i++) {
+            int tag = input.readUnsignedByte();
+            switch (tag) {
+                case 1: {
+                    Matcher matcher = CLASS_NAME.matcher(input.readUTF());
+                    while (matcher.find())
+                        names.add(matcher.group());
+                    break;
+                }
+                case 5:
+                case 6:
+                    input.skipBytes(8);
+                    i++;
+                    break;
+                case 7:
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    input.skipBytes(2);
+                    break;
+                case 15:
+                    input.skipBytes(3);
+                    break;
+                default:
+                    input.skipBytes(4);
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.jvm;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The code of one method, with the instructions {@link ClassCompiler} needs.
+ *
+ * Every local has a single type for the whole method and is set before
+ * anything else runs, and the operand stack is empty at every jump target.
+ * The same frame therefore describes every target, which keeps the stack
+ * map table trivial to write.
+ */
+class MethodWriter {
+    static final int INT = 1;
+    static final int LONG = 4;
+    static final int OBJECT = 7;
+
+    private static final int ACONST_NULL = 1;
+    private static final int ICONST_0 = 3;
+    private static final int LCONST_0 = 9;
+    private static final int BIPUSH = 16;
+    private static final int SIPUSH = 17;
+    private static final int LDC = 18;
+    private static final int LDC_W = 19;
+    private static final int LDC2_W = 20;
+    private static final int ILOAD = 21;
+    private static final int LLOAD = 22;
+    private static final int ALOAD = 25;
+    private static final int ISTORE = 54;
+    private static final int LSTORE = 55;
+    private static final int ASTORE = 58;
+    private static final int IINC = 132;
+    private static final int WIDE = 196;
+
+    static final int DUP = 89;
+    static final int SWAP = 95;
+    static final int IADD = 96;
+    static final int ISUB = 100;
+    static final int IMUL = 104;
+    static final int IDIV = 108;
+    static final int IUSHR = 124;
+    static final int IAND = 126;
+    static final int IXOR = 130;
+    static final int I2L = 133;
+    static final int IF_ICMPLT = 161;
+    static final int IF_ICMPGE = 162;
+    static final int RETURN = 177;
+    static final int INVOKEVIRTUAL = 182;
+    static final int INVOKESPECIAL = 183;
+    static final int INVOKESTATIC = 184;
+    private static final int NEW = 187;
+
+    private final ConstantPool pool;
+    private int parameters;
+
+    private byte[] code = new byte[256];
+    private int length;
+    private int depth;
+    private int maxStack;
+
+    /* the verification type of each local, and the class of the objects */
+    private final List<Integer> types = new ArrayList<>();
+    private final List<Integer> classes = new ArrayList<>();
+    private int maxLocals;
+    private final TreeSet<Integer> targets = new TreeSet<>();
+
+    /**
+     * The code of a method whose parameters, starting with the object of an
+     * instance method, are objects of the given classes.
+     */
+    MethodWriter(ConstantPool pool, String... parameterClasses) {
+        this.pool = pool;
+        for (String parameter : parameterClasses)
+            local(OBJECT, parameter);
+        parameters = types.size();
+    }
+
+    /**
+     * Add an int parameter after the others, and return its index. This
+     * must be done before any other local is added.
+     */
+    int intParameter() {
+        if (parameters != types.size())
+            throw new IllegalStateException("Parameter after " + (types.size() - parameters) + " locals");
+        parameters++;
+        return local(INT, null);
+    }
+
+    /**
+     * The length of the whole method, with the code setting the locals.
+     */
+    int size() {
+        return prologue().length + length;
+    }
+
+    /**
+     * Add a local of the given verification type, which for objects is of
+     * the given class, and return its index.
+     */
+    int local(int type, String className) {
+        types.add(type);
+        classes.add(type == OBJECT ? pool.classRef(className) : 0);
+        int index = maxLocals;
+        maxLocals += type == LONG ? 2 : 1;
+        return index;
+    }
+
+    private void u1(int value) {
+        if (length + 3 > code.length)
+            code = Arrays.copyOf(code, code.length * 2);
+        code[length++] = (byte) value;
+    }
+
+    private void u2(int value) {
+        u1(value >> 8);
+        u1(value);
+    }
+
+    private void stack(int change) {
+        depth += change;
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    /**
+     * An instruction without operands, which changes the depth of the stack
+     * by the given amount.
+     */
+    void op(int opcode, int change) {
+        u1(opcode);
+        stack(change);
+    }
+
+    void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            u1(ICONST_0 + value);
+        } else if (value == (byte) value) {
+            u1(BIPUSH);
+            u1(value);
+        } else if (value == (short) value) {
+            u1(SIPUSH);
+            u2(value);
+        } else {
+            ldc(pool.integer(value));
+        }
+        stack(1);
+    }
+
+    void pushString(String value) {
+        ldc(pool.string(value));
+        stack(1);
+    }
+
+    void pushLong(long value) {
+        u1(LDC2_W);
+        u2(pool.longValue(value));
+        stack(2);
+    }
+
+    void pushNull() {
+        op(ACONST_NULL, 1);
+    }
+
+    void newInstance(String className) {
+        u1(NEW);
+        u2(pool.classRef(className));
+        stack(1);
+    }
+
+    private void ldc(int index) {
+        if (index < 256) {
+            u1(LDC);
+            u1(index);
+        } else {
+            u1(LDC_W);
+            u2(index);
+        }
+    }
+
+    /* A load or store of a local, widened when the index needs it */
+    private void local(int opcode, int index, int change) {
+        if (index > 255) {
+            u1(WIDE);
+            u1(opcode);
+            u2(index);
+        } else {
+            u1(opcode);
+            u1(index);
+        }
+        stack(change);
+    }
+
+    void iload(int index) {
+        local(ILOAD, index, 1);
+    }
+
+    void lload(int index) {
+        local(LLOAD, index, 2);
+    }
+
+    void aload(int index) {
+        local(ALOAD, index, 1);
+    }
+
+    void istore(int index) {
+        local(ISTORE, index, -1);
+    }
+
+    void lstore(int index) {
+        local(LSTORE, index, -2);
+    }
+
+    void astore(int index) {
+        local(ASTORE, index, -1);
+    }
+
+    void increment(int index) {
+        if (index > 255) {
+            u1(WIDE);
+            u1(IINC);
+            u2(index);
+            u2(1);
+        } else {
+            u1(IINC);
+            u1(index);
+            u1(1);
+        }
+    }
+
+    /**
+     * Call a method which changes the depth of the stack by the given
+     * amount, counting the receiver and the arguments.
+     */
+    void invoke(int opcode, String owner, String name, String descriptor, int change) {
+        u1(opcode);
+        u2(pool.method(owner, name, descriptor));
+        stack(change);
+    }
+
+    /**
+     * Mark the current position as a jump target. The stack must be empty.
+     */
+    int target() {
+        if (depth != 0)
+            throw new IllegalStateException("Jump target with " + depth + " values on the stack");
+        targets.add(length);
+        return length;
+    }
+
+    /**
+     * Compare and pop the two ints on the stack, jumping to the target if
+     * the comparison holds. The position of the jump is returned, so that
+     * a forward jump can be patched with {@link #patch(int, int)}.
+     */
+    int jump(int opcode, int target) {
+        int position = length;
+        u1(opcode);
+        u2(target - position);
+        stack(-2);
+        return position;
+    }
+
+    void patch(int jump, int target) {
+        int offset = target - jump;
+        code[jump + 1] = (byte) (offset >> 8);
+        code[jump + 2] = (byte) offset;
+    }
+
+    private void append(MethodWriter other) {
+        for (int i = 0; i < other.length; i++)
+            u1(other.code[i]);
+        maxStack = Math.max(maxStack, depth + other.maxStack);
+        depth += other.depth;
+    }
+
+    /* Code which sets every local which is not a parameter. The values
+     * are never read, they only give each local its type from the start. */
+    private MethodWriter prologue() {
+        MethodWriter prologue = new MethodWriter(pool);
+        int index = parameters;
+        for (int i = parameters; i < types.size(); i++) {
+            switch (types.get(i)) {
+                case INT:
+                    prologue.pushInt(0);
+                    prologue.istore(index);
+                    index++;
+                    break;
+                case LONG:
+                    prologue.op(LCONST_0, 2);
+                    prologue.lstore(index);
+                    index += 2;
+                    break;
+                default:
+                    prologue.pushNull();
+                    prologue.astore(index);
+                    index++;
+            }
+        }
+        return prologue;
+    }
+
+    /**
+     * Write the method into a class file.
+     */
+    void writeTo(DataOutputStream out, int access, String name, String descriptor) throws IOException {
+        writeTo(out, access, name, descriptor, new MethodWriter(pool));
+    }
+
+    /**
+     * Write the method into a class file, running the code of the head
+     * after setting the locals. The head may use the locals of this method,
+     * but must not jump or leave anything on the stack.
+     */
+    void writeTo(DataOutputStream out, int access, String name, String descriptor, MethodWriter head)
+            throws IOException {
+        MethodWriter prologue = prologue();
+        prologue.append(head);
+        int offset = prologue.length;
+        boolean frames = !targets.isEmpty();
+        int frameSize = 1 + 2 + 2 + 2;
+        for (int type : types)
+            frameSize += type == OBJECT ? 3 : 1;
+        int tableLength = 2 + targets.size() * frameSize;
+
+        out.writeShort(access);
+        out.writeShort(pool.utf8(name));
+        out.writeShort(pool.utf8(descriptor));
+        out.writeShort(1);
+        out.writeShort(pool.utf8("Code"));
+        out.writeInt(2 + 2 + 4 + offset + length + 2 + 2 + (frames ? 6 + tableLength : 0));
+        out.writeShort(Math.max(maxStack, prologue.maxStack));
+        out.writeShort(maxLocals);
+        out.writeInt(offset + length);
+        out.write(prologue.code, 0, offset);
+        out.write(code, 0, length);
+        out.writeShort(0);
+        if (!frames) {
+            out.writeShort(0);
+            return;
+        }
+
+        out.writeShort(1);
+        out.writeShort(pool.utf8("StackMapTable"));
+        out.writeInt(tableLength);
+        out.writeShort(targets.size());
+        int previous = -1;
+        for (int target : targets) {
+            out.writeByte(255);
+            out.writeShort(offset + target - previous - 1);
+            previous = offset + target;
+            out.writeShort(types.size());
+            for (int i = 0; i < types.size(); i++) {
+                out.writeByte(types.get(i));
+                if (types.get(i) == OBJECT)
+                    out.writeShort(classes.get(i));
+            }
+            out.writeShort(0);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.jvm;
+
+import fi.jgke.miniplc.exception.AssertionFailureException;
+import fi.jgke.miniplc.exception.RuntimeException;
+import fi.jgke.miniplc.exception.UninitializedVariableException;
+import fi.jgke.miniplc.exception.UnsupportedInputException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executable;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.Operations;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+/**
+ * What the classes generated by {@link ClassCompiler} call for anything more
+ * than arithmetic. The methods are small and static, so the JIT inlines them
+ * into the caller. They are public because a class from a class loader of
+ * its own can only call public methods, and are not meant to be used
+ * otherwise.
+ */
+public final class Support {
+    static final String NAME = "fi/jgke/miniplc/jvm/Support";
+
+    private Support() {
+    }
+
+    /**
+     * Run a compiled program on the standard streams, printing an error and
+     * exiting with status 1 like {@link fi.jgke.miniplc.Miniplc} does.
+     */
+    public static void main(Executable program) {
+        try {
+            program.execute(new Context(InputOutput.getInstance()));
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /* The int in a variable which may not be set yet */
+    public static int checkInt(long value, String name, int line) {
+        if (value == Context.UNSET)
+            throw new UninitializedVariableException(new Variable(name, line, VariableType.INT));
+        return (int) value;
+    }
+
+    public static int checkBool(long value, String name, int line) {
+        if (value == Context.UNSET)
+            throw new UninitializedVariableException(new Variable(name, line, VariableType.BOOL));
+        return (int) value;
+    }
+
+    /* Store an int or a boolean which may not be set into a slot */
+    public static void store(Context context, int slot, long value) {
+        if (value == Context.UNSET)
+            context.unset(slot);
+        else
+            context.setInt(slot, (int) value);
+    }
+
+    public static String checkString(String value, String name, int line) {
+        if (value == null)
+            throw new UninitializedVariableException(new Variable(name, line, VariableType.STRING));
+        return value;
+    }
+
+    public static void assertion(int condition, int line) {
+        if (condition == 0)
+            throw new AssertionFailureException(line);
+    }
+
+    public static int readInt(Context context, String name, int line) {
+        return (Integer) Operations.read(context, VariableType.INT, name, line).getValue();
+    }
+
+    public static String readString(Context context, String name, int line) {
+        return (String) Operations.read(context, VariableType.STRING, name, line).getValue();
+    }
+
+    /* Booleans cannot be read */
+    public static void readBool(int line) {
+        throw new UnsupportedInputException(line);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.exception.UninitializedVariableException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+/**
+ * The nodes of boolean expressions. Both operators are commutative, so the
+ * right operand is evaluated first by swapping the operands.
+ */
+final class BoolNodes {
+    private BoolNodes() {
+    }
+
+    static final class BoolConstantNode extends ExpressionNode {
+        private final boolean value;
+
+        BoolConstantNode(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            return value;
+        }
+    }
+
+    static final class LocalBoolReadNode extends ExpressionNode {
+        private final int slot;
+        private final String name;
+        private final int declarationLine;
+
+        LocalBoolReadNode(int slot, String name, int declarationLine) {
+            this.slot = slot;
+            this.name = name;
+            this.declarationLine = declarationLine;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            long value = context.getValue(slot);
+            if (value == Context.UNSET)
+                throw new UninitializedVariableException(new Variable(name, declarationLine, VariableType.BOOL));
+            return value != 0;
+        }
+    }
+
+    /* both operands are always evaluated */
+    static final class AndNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        AndNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            return left.executeBool(context) & right.executeBool(context);
+        }
+    }
+
+    static final class BoolEqualsNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        BoolEqualsNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            return left.executeBool(context) == right.executeBool(context);
+        }
+    }
+
+    static final class NotNode extends ExpressionNode {
+        private final ExpressionNode operand;
+
+        NotNode(ExpressionNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            return !operand.executeBool(context);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.interpreter.Context;
+
+/**
+ * A node of an expression, which is evaluated with the method for the type
+ * of its value. Each kind of node does one thing for one type, so
+ * evaluating it involves no checks of types or operators.
+ */
+abstract class ExpressionNode {
+    int executeInt(Context context) {
+        throw new IllegalStateException("Not an integer expression: " + getClass().getSimpleName());
+    }
+
+    boolean executeBool(Context context) {
+        throw new IllegalStateException("Not a boolean expression: " + getClass().getSimpleName());
+    }
+
+    String executeString(Context context) {
+        throw new IllegalStateException("Not a string expression: " + getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.exception.UninitializedVariableException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+/**
+ * The nodes of integer expressions, and of comparisons of integers.
+ *
+ * Operands are evaluated left to right. A node which evaluates the right
+ * operand first, to report errors in the same order as the syntax tree,
+ * is of a class of its own, except for commutative operators whose
+ * operands are simply swapped.
+ */
+final class IntNodes {
+    private IntNodes() {
+    }
+
+    static final class IntConstantNode extends ExpressionNode {
+        private final int value;
+
+        IntConstantNode(int value) {
+            this.value = value;
+        }
+
+        @Override
+        int executeInt(Context context) {
+            return value;
+        }
+    }
+
+    static final class LocalIntReadNode extends ExpressionNode {
+        private final int slot;
+        private final String name;
+        private final int declarationLine;
+
+        LocalIntReadNode(int slot, String name, int declarationLine) {
+            this.slot = slot;
+            this.name = name;
+            this.declarationLine = declarationLine;
+        }
+
+        @Override
+        int executeInt(Context context) {
+            long value = context.getValue(slot);
+            if (value == Context.UNSET)
+                throw new UninitializedVariableException(new Variable(name, declarationLine, VariableType.INT));
+            return (int) value;
+        }
+    }
+
+    static final class IntAddNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntAddNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int executeInt(Context context) {
+            return left.executeInt(context) + right.executeInt(context);
+        }
+    }
+
+    static final class IntSubtractNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntSubtractNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int executeInt(Context context) {
+            return left.executeInt(context) - right.executeInt(context);
+        }
+    }
+
+    static final class IntSubtractRightFirstNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntSubtractRightFirstNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int executeInt(Context context) {
+            int b = right.executeInt(context);
+            return left.executeInt(context) - b;
+        }
+    }
+
+    static final class IntMultiplyNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntMultiplyNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int executeInt(Context context) {
+            return left.executeInt(context) * right.executeInt(context);
+        }
+    }
+
+    static final class IntDivideNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntDivideNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int executeInt(Context context) {
+            return left.executeInt(context) / right.executeInt(context);
+        }
+    }
+
+    static final class IntDivideRightFirstNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntDivideRightFirstNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int executeInt(Context context) {
+            int b = right.executeInt(context);
+            return left.executeInt(context) / b;
+        }
+    }
+
+    static final class IntLessThanNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntLessThanNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            return left.executeInt(context) < right.executeInt(context);
+        }
+    }
+
+    static final class IntLessThanRightFirstNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntLessThanRightFirstNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            int b = right.executeInt(context);
+            return left.executeInt(context) < b;
+        }
+    }
+
+    static final class IntEqualsNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        IntEqualsNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            return left.executeInt(context) == right.executeInt(context);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.ast.Assert;
+import fi.jgke.miniplc.ast.Assign;
+import fi.jgke.miniplc.ast.Binary;
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.For;
+import fi.jgke.miniplc.ast.Literal;
+import fi.jgke.miniplc.ast.Print;
+import fi.jgke.miniplc.ast.Read;
+import fi.jgke.miniplc.ast.Statement;
+import fi.jgke.miniplc.ast.Unary;
+import fi.jgke.miniplc.ast.VarDecl;
+import fi.jgke.miniplc.ast.VarRef;
+import fi.jgke.miniplc.ast.Visitor;
+import fi.jgke.miniplc.interpreter.Executable;
+
+import java.util.List;
+
+import static fi.jgke.miniplc.specializing.StatementNodes.*;
+
+/**
+ * Builds the nodes of a self-specializing interpreter. Each expression
+ * starts as an {@link UninitializedNode}, which replaces itself with nodes
+ * for its types and operators when it is first evaluated.
+ */
+public final class NodeBuilder implements Visitor<StatementNode> {
+    private static final NodeBuilder INSTANCE = new NodeBuilder();
+
+    private NodeBuilder() {
+    }
+
+    public static Executable build(Block program) {
+        return INSTANCE.block(program);
+    }
+
+    private BlockNode block(Block block) {
+        List<Statement> statements = block.getStatements();
+        StatementNode[] nodes = new StatementNode[statements.size()];
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = statements.get(i).accept(this);
+        return new BlockNode(nodes);
+    }
+
+    private static StatementNode set(int slot, Expression value) {
+        switch (value.getType()) {
+            case INT:
+                return new SetIntNode(slot, value);
+            case BOOL:
+                return new SetBoolNode(slot, value);
+            default:
+                return new SetStringNode(slot, value);
+        }
+    }
+
+    @Override
+    public StatementNode visit(VarDecl node) {
+        if (node.getValue() == null)
+            return new UnsetNode(node.getSlot());
+        return set(node.getSlot(), node.getValue());
+    }
+
+    @Override
+    public StatementNode visit(Assign node) {
+        return set(node.getSlot(), node.getValue());
+    }
+
+    @Override
+    public StatementNode visit(For node) {
+        return new ForNode(node.getSlot(), node.getStart(), node.getEnd(), block(node.getBody()));
+    }
+
+    @Override
+    public StatementNode visit(Print node) {
+        Expression value = node.getValue();
+        switch (value.getType()) {
+            case INT:
+                return new PrintIntNode(value);
+            case BOOL:
+                return new PrintBoolNode(value);
+            default:
+                return new PrintStringNode(value);
+        }
+    }
+
+    @Override
+    public StatementNode visit(Read node) {
+        return new ReadNode(node.getSlot(), node.getType(), node.getName(), node.getLineNumber());
+    }
+
+    @Override
+    public StatementNode visit(Assert node) {
+        return new AssertNode(node.getCondition(), node.getLineNumber());
+    }
+
+    private static IllegalStateException notAStatement() {
+        return new IllegalStateException("Expressions are built when they are first evaluated");
+    }
+
+    @Override
+    public StatementNode visit(Binary node) {
+        throw notAStatement();
+    }
+
+    @Override
+    public StatementNode visit(Unary node) {
+        throw notAStatement();
+    }
+
+    @Override
+    public StatementNode visit(Literal node) {
+        throw notAStatement();
+    }
+
+    @Override
+    public StatementNode visit(VarRef node) {
+        throw notAStatement();
+    }
+}
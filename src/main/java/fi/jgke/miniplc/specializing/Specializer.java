@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.ast.Assert;
+import fi.jgke.miniplc.ast.Assign;
+import fi.jgke.miniplc.ast.Binary;
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.For;
+import fi.jgke.miniplc.ast.Literal;
+import fi.jgke.miniplc.ast.Print;
+import fi.jgke.miniplc.ast.Read;
+import fi.jgke.miniplc.ast.Unary;
+import fi.jgke.miniplc.ast.VarDecl;
+import fi.jgke.miniplc.ast.VarRef;
+import fi.jgke.miniplc.ast.Visitor;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+import static fi.jgke.miniplc.specializing.BoolNodes.*;
+import static fi.jgke.miniplc.specializing.IntNodes.*;
+import static fi.jgke.miniplc.specializing.StringNodes.*;
+
+/**
+ * Builds the nodes specialized for a checked expression, by the types of
+ * its operands, its operator and the order its operands are evaluated in.
+ */
+final class Specializer implements Visitor<ExpressionNode> {
+    private static final Specializer INSTANCE = new Specializer();
+
+    private Specializer() {
+    }
+
+    static ExpressionNode specialize(Expression expression) {
+        return expression.accept(INSTANCE);
+    }
+
+    @Override
+    public ExpressionNode visit(Binary node) {
+        ExpressionNode left = node.getLeft().accept(this);
+        ExpressionNode right = node.getRight().accept(this);
+        boolean rightFirst = node.isRightFirst();
+        VariableType type = node.getLeft().getType();
+
+        switch (node.getOperator().getValue()) {
+            case PLUS:
+                if (type == VariableType.STRING)
+                    return rightFirst ? new StringConcatRightFirstNode(left, right) : new StringConcatNode(left, right);
+                return rightFirst ? new IntAddNode(right, left) : new IntAddNode(left, right);
+            case MINUS:
+                return rightFirst ? new IntSubtractRightFirstNode(left, right) : new IntSubtractNode(left, right);
+            case TIMES:
+                return rightFirst ? new IntMultiplyNode(right, left) : new IntMultiplyNode(left, right);
+            case DIVIDE:
+                return rightFirst ? new IntDivideRightFirstNode(left, right) : new IntDivideNode(left, right);
+            case LESS_THAN:
+                return rightFirst ? new IntLessThanRightFirstNode(left, right) : new IntLessThanNode(left, right);
+            case AND:
+                return rightFirst ? new AndNode(right, left) : new AndNode(left, right);
+            case EQUALS:
+                if (rightFirst) {
+                    ExpressionNode first = right;
+                    right = left;
+                    left = first;
+                }
+                switch (type) {
+                    case INT:
+                        return new IntEqualsNode(left, right);
+                    case BOOL:
+                        return new BoolEqualsNode(left, right);
+                    default:
+                        return new StringEqualsNode(left, right);
+                }
+            default:
+                throw new IllegalStateException("Operator was not type checked: " + node.getOperator());
+        }
+    }
+
+    @Override
+    public ExpressionNode visit(Unary node) {
+        return new NotNode(node.getOperand().accept(this));
+    }
+
+    @Override
+    public ExpressionNode visit(Literal node) {
+        Object value = node.getValue().getValue();
+        if (value instanceof Integer)
+            return new IntConstantNode((Integer) value);
+        if (value instanceof Boolean)
+            return new BoolConstantNode((Boolean) value);
+        return new StringConstantNode((String) value);
+    }
+
+    @Override
+    public ExpressionNode visit(VarRef node) {
+        switch (node.getType()) {
+            case INT:
+                return new LocalIntReadNode(node.getSlot(), node.getName(), node.getDeclarationLine());
+            case BOOL:
+                return new LocalBoolReadNode(node.getSlot(), node.getName(), node.getDeclarationLine());
+            default:
+                return new LocalStringReadNode(node.getSlot(), node.getName(), node.getDeclarationLine());
+        }
+    }
+
+    private static IllegalStateException notAnExpression() {
+        return new IllegalStateException("Statements are not specialized");
+    }
+
+    @Override
+    public ExpressionNode visit(VarDecl node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public ExpressionNode visit(Assign node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public ExpressionNode visit(For node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public ExpressionNode visit(Print node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public ExpressionNode visit(Read node) {
+        throw notAnExpression();
+    }
+
+    @Override
+    public ExpressionNode visit(Assert node) {
+        throw notAnExpression();
+    }
+}
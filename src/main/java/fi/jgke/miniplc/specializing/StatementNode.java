@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.interpreter.Context;
+
+/**
+ * A node of a statement, whose expressions start out as
+ * {@link UninitializedNode}s and are replaced once they are first evaluated.
+ */
+abstract class StatementNode {
+    abstract void execute(Context context);
+
+    /**
+     * Replace an expression of the statement, if it still is the given one.
+     */
+    abstract void replace(ExpressionNode expression, ExpressionNode replacement);
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.ast.For;
+import fi.jgke.miniplc.exception.AssertionFailureException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executable;
+import fi.jgke.miniplc.interpreter.Operations;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+/**
+ * The nodes of statements, one for each type of value they handle.
+ */
+final class StatementNodes {
+    private StatementNodes() {
+    }
+
+    static final class BlockNode implements Executable {
+        final StatementNode[] statements;
+
+        BlockNode(StatementNode[] statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        public void execute(Context context) {
+            for (StatementNode statement : statements)
+                statement.execute(context);
+        }
+    }
+
+    static final class SetIntNode extends StatementNode {
+        private final int slot;
+        ExpressionNode value;
+
+        SetIntNode(int slot, Expression value) {
+            this.slot = slot;
+            this.value = new UninitializedNode(value, this);
+        }
+
+        @Override
+        void execute(Context context) {
+            context.setInt(slot, value.executeInt(context));
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+            if (value == expression)
+                value = replacement;
+        }
+    }
+
+    static final class SetBoolNode extends StatementNode {
+        private final int slot;
+        ExpressionNode value;
+
+        SetBoolNode(int slot, Expression value) {
+            this.slot = slot;
+            this.value = new UninitializedNode(value, this);
+        }
+
+        @Override
+        void execute(Context context) {
+            context.setBool(slot, value.executeBool(context));
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+            if (value == expression)
+                value = replacement;
+        }
+    }
+
+    static final class SetStringNode extends StatementNode {
+        private final int slot;
+        ExpressionNode value;
+
+        SetStringNode(int slot, Expression value) {
+            this.slot = slot;
+            this.value = new UninitializedNode(value, this);
+        }
+
+        @Override
+        void execute(Context context) {
+            context.setString(slot, value.executeString(context));
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+            if (value == expression)
+                value = replacement;
+        }
+    }
+
+    /* a declaration without a value */
+    static final class UnsetNode extends StatementNode {
+        private final int slot;
+
+        UnsetNode(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        void execute(Context context) {
+            context.unset(slot);
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+        }
+    }
+
+    static final class ForNode extends StatementNode {
+        private final int slot;
+        ExpressionNode start;
+        ExpressionNode end;
+        final BlockNode body;
+
+        ForNode(int slot, Expression start, Expression end, BlockNode body) {
+            this.slot = slot;
+            this.start = new UninitializedNode(start, this);
+            this.end = new UninitializedNode(end, this);
+            this.body = body;
+        }
+
+        @Override
+        void execute(Context context) {
+            int first = start.executeInt(context);
+            int last = For.exclusiveEnd(end.executeInt(context));
+            for (int i = first; i < last; i++) {
+                context.setInt(slot, i);
+                body.execute(context);
+            }
+            context.setInt(slot, last);
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+            if (start == expression)
+                start = replacement;
+            if (end == expression)
+                end = replacement;
+        }
+    }
+
+    static final class PrintIntNode extends StatementNode {
+        ExpressionNode value;
+
+        PrintIntNode(Expression value) {
+            this.value = new UninitializedNode(value, this);
+        }
+
+        @Override
+        void execute(Context context) {
+            context.print(value.executeInt(context));
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+            if (value == expression)
+                value = replacement;
+        }
+    }
+
+    static final class PrintBoolNode extends StatementNode {
+        ExpressionNode value;
+
+        PrintBoolNode(Expression value) {
+            this.value = new UninitializedNode(value, this);
+        }
+
+        @Override
+        void execute(Context context) {
+            context.print(value.executeBool(context));
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+            if (value == expression)
+                value = replacement;
+        }
+    }
+
+    static final class PrintStringNode extends StatementNode {
+        ExpressionNode value;
+
+        PrintStringNode(Expression value) {
+            this.value = new UninitializedNode(value, this);
+        }
+
+        @Override
+        void execute(Context context) {
+            context.print(value.executeString(context));
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+            if (value == expression)
+                value = replacement;
+        }
+    }
+
+    static final class ReadNode extends StatementNode {
+        private final int slot;
+        private final VariableType type;
+        private final String name;
+        private final int line;
+
+        ReadNode(int slot, VariableType type, String name, int line) {
+            this.slot = slot;
+            this.type = type;
+            this.name = name;
+            this.line = line;
+        }
+
+        @Override
+        void execute(Context context) {
+            Variable variable = Operations.read(context, type, name, line);
+            if (type == VariableType.INT)
+                context.setInt(slot, (Integer) variable.getValue());
+            else
+                context.setString(slot, (String) variable.getValue());
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+        }
+    }
+
+    static final class AssertNode extends StatementNode {
+        private final int line;
+        ExpressionNode condition;
+
+        AssertNode(Expression condition, int line) {
+            this.line = line;
+            this.condition = new UninitializedNode(condition, this);
+        }
+
+        @Override
+        void execute(Context context) {
+            if (!condition.executeBool(context))
+                throw new AssertionFailureException(line);
+        }
+
+        @Override
+        void replace(ExpressionNode expression, ExpressionNode replacement) {
+            if (condition == expression)
+                condition = replacement;
+        }
+    }
+}
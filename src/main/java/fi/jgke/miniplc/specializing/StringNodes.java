@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.exception.UninitializedVariableException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Variable;
+import fi.jgke.miniplc.interpreter.VariableType;
+
+/**
+ * The nodes of string expressions, and of comparisons of strings.
+ */
+final class StringNodes {
+    private StringNodes() {
+    }
+
+    static final class StringConstantNode extends ExpressionNode {
+        private final String value;
+
+        StringConstantNode(String value) {
+            this.value = value;
+        }
+
+        @Override
+        String executeString(Context context) {
+            return value;
+        }
+    }
+
+    static final class LocalStringReadNode extends ExpressionNode {
+        private final int slot;
+        private final String name;
+        private final int declarationLine;
+
+        LocalStringReadNode(int slot, String name, int declarationLine) {
+            this.slot = slot;
+            this.name = name;
+            this.declarationLine = declarationLine;
+        }
+
+        @Override
+        String executeString(Context context) {
+            String value = context.getString(slot);
+            if (value == null)
+                throw new UninitializedVariableException(new Variable(name, declarationLine, VariableType.STRING));
+            return value;
+        }
+    }
+
+    static final class StringConcatNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        StringConcatNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        String executeString(Context context) {
+            return left.executeString(context) + right.executeString(context);
+        }
+    }
+
+    static final class StringConcatRightFirstNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        StringConcatRightFirstNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        String executeString(Context context) {
+            String b = right.executeString(context);
+            return left.executeString(context) + b;
+        }
+    }
+
+    /* equality is commutative, so the operands are swapped to evaluate
+     * the right one first */
+    static final class StringEqualsNode extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        StringEqualsNode(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean executeBool(Context context) {
+            return left.executeString(context).equals(right.executeString(context));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.ast.Expression;
+import fi.jgke.miniplc.interpreter.Context;
+
+/**
+ * An expression which has not been evaluated yet. The first evaluation
+ * builds the nodes specialized for the expression and replaces this node
+ * with them in the statement, so an expression which is never evaluated is
+ * never specialized.
+ *
+ * The specialized nodes are immutable, so threads running the same program
+ * at once either see this node or all of the nodes which replace it. Each
+ * may specialize the expression, which only builds equal nodes.
+ */
+final class UninitializedNode extends ExpressionNode {
+    private final Expression expression;
+    private final StatementNode statement;
+    private ExpressionNode specialized;
+
+    UninitializedNode(Expression expression, StatementNode statement) {
+        this.expression = expression;
+        this.statement = statement;
+    }
+
+    private ExpressionNode specialize() {
+        ExpressionNode node = specialized;
+        if (node == null) {
+            node = Specializer.specialize(expression);
+            specialized = node;
+            statement.replace(this, node);
+        }
+        return node;
+    }
+
+    @Override
+    int executeInt(Context context) {
+        return specialize().executeInt(context);
+    }
+
+    @Override
+    boolean executeBool(Context context) {
+        return specialize().executeBool(context);
+    }
+
+    @Override
+    String executeString(Context context) {
+        return specialize().executeString(context);
+    }
+}
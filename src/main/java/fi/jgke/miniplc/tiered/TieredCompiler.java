@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tiered;
+
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.For;
+import fi.jgke.miniplc.closure.ClosureCompiler;
+import fi.jgke.miniplc.interpreter.Executable;
+
+/**
+ * Compiles a program into lambdas like {@link ClosureCompiler}, except that
+ * a for loop which has run as many iterations as the {@link Tiering}
+ * allows is compiled into a JVM class in the background, and the
+ * interpreter moves into it.
+ */
+public final class TieredCompiler extends ClosureCompiler {
+    private final int slotCount;
+    private final Tiering tiering;
+
+    private TieredCompiler(int slotCount, Tiering tiering) {
+        this.slotCount = slotCount;
+        this.tiering = tiering;
+    }
+
+    /**
+     * Compile a checked program whose variables need the given number of
+     * slots, with the default {@link Tiering}.
+     */
+    public static Executable compile(Block program, int slotCount) {
+        return compile(program, slotCount, Tiering.getDefault());
+    }
+
+    public static Executable compile(Block program, int slotCount, Tiering tiering) {
+        return new TieredCompiler(slotCount, tiering).block(program);
+    }
+
+    @Override
+    public Executable visit(For node) {
+        return new TieredLoop(node, slotCount, compileInt(node.getStart()), compileInt(node.getEnd()),
+                block(node.getBody()), tiering);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tiered;
+
+import fi.jgke.miniplc.ast.For;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executable;
+import fi.jgke.miniplc.jvm.ClassCompiler;
+import fi.jgke.miniplc.jvm.CompiledLoop;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
+
+/**
+ * A for loop which is interpreted until it gets hot, and then handed over
+ * to a JVM class compiled by {@link ClassCompiler#compileLoop}. The
+ * variables live in the context in both, so the compiled loop can take over
+ * between any two iterations.
+ */
+final class TieredLoop implements Executable {
+    private final For node;
+    private final int slotCount;
+    private final ToIntFunction<Context> start;
+    private final ToIntFunction<Context> end;
+    private final Executable body;
+    private final Tiering tiering;
+
+    /* iterations run by the interpreter, counted loosely by every thread,
+     * until the loop is queued for compiling. A loop is queued only once,
+     * so one which could not be compiled stays interpreted. */
+    private int iterations;
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private volatile CompiledLoop compiled;
+
+    TieredLoop(For node, int slotCount, ToIntFunction<Context> start, ToIntFunction<Context> end,
+               Executable body, Tiering tiering) {
+        this.node = node;
+        this.slotCount = slotCount;
+        this.start = start;
+        this.end = end;
+        this.body = body;
+        this.tiering = tiering;
+    }
+
+    @Override
+    public void execute(Context context) {
+        int slot = node.getSlot();
+        int threshold = tiering.getLoopThreshold();
+        int first = start.applyAsInt(context);
+        int last = For.exclusiveEnd(end.applyAsInt(context));
+        CompiledLoop loop = compiled;
+        if (loop != null) {
+            tiering.entered();
+            loop.resume(context, first, last);
+            return;
+        }
+
+        for (int i = first; i < last; i++) {
+            context.setInt(slot, i);
+            body.execute(context);
+            if (iterations < threshold) {
+                if (++iterations >= threshold)
+                    queue();
+            } else if ((loop = compiled) != null) {
+                tiering.replaced();
+                loop.resume(context, i + 1, last);
+                return;
+            }
+        }
+        context.setInt(slot, last);
+    }
+
+    private void queue() {
+        if (!queued.compareAndSet(false, true))
+            return;
+        try {
+            tiering.getCompiler().execute(this::compile);
+        } catch (RejectedExecutionException e) {
+            tiering.failed();
+        }
+    }
+
+    private void compile() {
+        CompiledLoop loop;
+        try {
+            loop = ClassCompiler.compileLoop(node, slotCount);
+        } catch (Throwable e) {
+            /* nothing waits for the compiler, so a failure is only counted */
+            loop = null;
+        }
+        if (loop == null) {
+            tiering.failed();
+            return;
+        }
+        tiering.compiled();
+        compiled = loop;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tiered;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * When the loops of a {@link TieredCompiler} are compiled, where, and how
+ * often execution has moved into the compiled loops.
+ *
+ * A loop is compiled once the interpreter has run the given number of its
+ * iterations, counting every time the loop is run. The counts are updated
+ * by every program using the tiering, from any thread.
+ */
+public final class Tiering {
+    public static final int DEFAULT_LOOP_THRESHOLD = 10000;
+
+    private static final Tiering DEFAULT = new Tiering(DEFAULT_LOOP_THRESHOLD,
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "miniplc-compiler");
+                thread.setDaemon(true);
+                return thread;
+            }));
+
+    private final int loopThreshold;
+    private final Executor compiler;
+
+    private final AtomicLong compiledLoops = new AtomicLong();
+    private final AtomicLong failedLoops = new AtomicLong();
+    private final AtomicLong onStackReplacements = new AtomicLong();
+    private final AtomicLong compiledEntries = new AtomicLong();
+
+    /**
+     * Compile loops after the given number of iterations, on the given
+     * executor. An executor which runs the compilation in the calling
+     * thread moves into the compiled loop on the next iteration.
+     */
+    public Tiering(int loopThreshold, Executor compiler) {
+        if (loopThreshold < 1)
+            throw new IllegalArgumentException("Loop threshold must be positive: " + loopThreshold);
+        this.loopThreshold = loopThreshold;
+        this.compiler = compiler;
+    }
+
+    /**
+     * Compile loops after {@link #DEFAULT_LOOP_THRESHOLD} iterations, on a
+     * background thread shared by every program.
+     */
+    public static Tiering getDefault() {
+        return DEFAULT;
+    }
+
+    public int getLoopThreshold() {
+        return loopThreshold;
+    }
+
+    Executor getCompiler() {
+        return compiler;
+    }
+
+    /**
+     * The number of loops which have been compiled.
+     */
+    public long getCompiledLoops() {
+        return compiledLoops.get();
+    }
+
+    /**
+     * The number of loops which got hot, but could not be compiled, such as
+     * loops too large for a JVM method or loops the compiler failed on.
+     */
+    public long getFailedLoops() {
+        return failedLoops.get();
+    }
+
+    /**
+     * How many times the interpreter has moved into a compiled loop in the
+     * middle of running it.
+     */
+    public long getOnStackReplacements() {
+        return onStackReplacements.get();
+    }
+
+    /**
+     * How many times a loop has been run by its compiled version from the
+     * start.
+     */
+    public long getCompiledEntries() {
+        return compiledEntries.get();
+    }
+
+    void compiled() {
+        compiledLoops.incrementAndGet();
+    }
+
+    void failed() {
+        failedLoops.incrementAndGet();
+    }
+
+    void replaced() {
+        onStackReplacements.incrementAndGet();
+    }
+
+    void entered() {
+        compiledEntries.incrementAndGet();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tokenizer;
+
+/**
+ * Source over a character array which is already fully in memory.
+ */
+class CharArraySource extends CharacterSource {
+    private final char[] buffer;
+    private final int start;
+    private final int limit;
+    private int position;
+    private int mark;
+
+    CharArraySource(char[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.start = offset;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    @Override
+    int peek() {
+        return position < limit ? buffer[position] : EOF;
+    }
+
+    @Override
+    void skip() {
+        position++;
+    }
+
+    @Override
+    long offset() {
+        return position - start;
+    }
+
+    @Override
+    void mark() {
+        mark = position;
+    }
+
+    @Override
+    void clearMark() {
+    }
+
+    @Override
+    String slice() {
+        return new String(buffer, mark, position - mark);
+    }
+
+    @Override
+    boolean sliceEquals(String string) {
+        int length = position - mark;
+        if (length != string.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (buffer[mark + i] != string.charAt(i))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tokenizer;
+
+/**
+ * Characters of MiniPL source, read by the tokenizer one at a time.
+ *
+ * A source can remember one position, the mark, so that words and literals
+ * can be sliced out once they have been fully scanned. Sources which only
+ * hold a window of their input keep the characters after the mark available.
+ */
+abstract class CharacterSource {
+    static final int EOF = -1;
+
+    /**
+     * The current character, or EOF at the end of the input.
+     */
+    abstract int peek();
+
+    /**
+     * Move past the current character.
+     */
+    abstract void skip();
+
+    /**
+     * The number of characters moved past so far.
+     */
+    abstract long offset();
+
+    /**
+     * Remember the current position as the start of a slice.
+     */
+    abstract void mark();
+
+    /**
+     * Forget the mark without slicing.
+     */
+    abstract void clearMark();
+
+    /**
+     * The characters from the mark up to the current position. Clears the
+     * mark.
+     */
+    abstract String slice();
+
+    /**
+     * Whether the characters from the mark up to the current position equal
+     * the given string. Keeps the mark.
+     */
+    abstract boolean sliceEquals(String string);
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tokenizer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Source which reads UTF-8 straight from a memory mapped file.
+ *
+ * ASCII bytes are returned as they are and other characters are decoded one
+ * at a time, so the file is never copied into the heap; only sliced words and
+ * literals are decoded into strings. Files larger than the window are mapped
+ * one window at a time, which keeps this usable for files that do not fit in
+ * a single mapping. Malformed input decodes to U+FFFD.
+ */
+class MappedFileSource extends CharacterSource {
+    static final int WINDOW_SIZE = 64 << 20;
+
+    private static final int UNDECODED = -2;
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private ByteBuffer view;
+    private long windowStart;
+    private int windowLimit;
+
+    /* positions are byte offsets into the current window */
+    private int position;
+    private int mark = -1;
+    /* characters moved past, which differs from bytes outside ASCII */
+    private long offset;
+    /* the mark was set between the halves of a surrogate pair */
+    private boolean markAfterHighSurrogate;
+
+    /* the decoded current character and its length in bytes */
+    private int current = UNDECODED;
+    private int currentLength;
+    /* low half of a surrogate pair, returned after the high half is skipped */
+    private char pendingLowSurrogate;
+
+    private byte[] scratch = new byte[64];
+
+    MappedFileSource(FileChannel channel, int windowSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        map(0, (int) Math.min(windowSize, size));
+    }
+
+    private void map(long start, int length) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        view = window.duplicate();
+        windowStart = start;
+        windowLimit = length;
+    }
+
+    /**
+     * Map the next window, starting from the mark if there is one, so that at
+     * least the given number of bytes after the position are mapped. Returns
+     * false if the window already reaches the end of the file.
+     */
+    private boolean remap(int needed) {
+        if (windowStart + windowLimit >= size)
+            return false;
+
+        int keep = mark < 0 ? position : mark;
+        long start = windowStart + keep;
+        long wanted = Math.max(Math.max(windowSize, 2L * (windowLimit - keep)), position - keep + needed);
+        long length = Math.min(wanted, size - start);
+        try {
+            map(start, (int) Math.min(length, Integer.MAX_VALUE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position -= keep;
+        if (mark >= 0)
+            mark = 0;
+        return true;
+    }
+
+    private int malformed() {
+        currentLength = 1;
+        return REPLACEMENT;
+    }
+
+    private int decode() {
+        int lead = window.get(position) & 0xff;
+        int length = lead >= 0xf0 ? 4 : lead >= 0xe0 ? 3 : lead >= 0xc0 ? 2 : 1;
+        if (length == 1 || lead >= 0xf8)
+            return malformed();
+        if (position + length > windowLimit && !remap(length))
+            return malformed();
+        if (position + length > windowLimit)
+            return malformed();
+
+        int codePoint = lead & (0x3f >> (length - 1));
+        for (int i = 1; i < length; i++) {
+            int b = window.get(position + i) & 0xff;
+            if ((b & 0xc0) != 0x80)
+                return malformed();
+            codePoint = codePoint << 6 | (b & 0x3f);
+        }
+
+        int minimum = length == 2 ? 0x80 : length == 3 ? 0x800 : 0x10000;
+        if (codePoint < minimum || codePoint > Character.MAX_CODE_POINT
+                || Character.isSurrogate((char) codePoint) && codePoint < 0x10000)
+            return malformed();
+
+        currentLength = length;
+        if (Character.isSupplementaryCodePoint(codePoint)) {
+            pendingLowSurrogate = Character.lowSurrogate(codePoint);
+            return Character.highSurrogate(codePoint);
+        }
+        return codePoint;
+    }
+
+    @Override
+    int peek() {
+        if (current != UNDECODED)
+            return current;
+        if (position >= windowLimit && !remap(1))
+            return current = EOF;
+
+        byte b = window.get(position);
+        if (b >= 0) {
+            currentLength = 1;
+            return current = b;
+        }
+        return current = decode();
+    }
+
+    @Override
+    void skip() {
+        if (current == UNDECODED)
+            peek();
+        offset++;
+        if (pendingLowSurrogate != 0) {
+            current = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+            return;
+        }
+        position += currentLength;
+        current = UNDECODED;
+    }
+
+    @Override
+    long offset() {
+        return offset;
+    }
+
+    @Override
+    void mark() {
+        mark = position;
+        markAfterHighSurrogate = current != UNDECODED && Character.isLowSurrogate((char) current);
+    }
+
+    @Override
+    void clearMark() {
+        mark = -1;
+    }
+
+    private String decodeSlice() {
+        int length = position - mark;
+        if (length > scratch.length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        view.clear();
+        view.position(mark);
+        view.get(scratch, 0, length);
+
+        String slice = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        return markAfterHighSurrogate ? slice.substring(1) : slice;
+    }
+
+    @Override
+    String slice() {
+        String slice = decodeSlice();
+        mark = -1;
+        return slice;
+    }
+
+    /* ASCII is compared byte by byte, anything else is decoded first */
+    @Override
+    boolean sliceEquals(String string) {
+        int length = position - mark;
+        if (length < string.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            byte b = window.get(mark + i);
+            if (b < 0)
+                return decodeSlice().equals(string);
+            if (i >= string.length() || b != string.charAt(i))
+                return false;
+        }
+        return length == string.length() && !markAfterHighSurrogate;
+    }
+}
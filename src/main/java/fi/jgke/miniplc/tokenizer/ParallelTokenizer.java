@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexes a large input in chunks on a {@link ForkJoinPool}.
+ *
+ * A cheap pre-scan follows strings and comments the way the tokenizer does,
+ * and cuts the input right after newlines which are outside of them, so every
+ * chunk starts at the beginning of a line in between tokens. The pre-scan also
+ * counts the lines the tokenizer would count, so each chunk is lexed with its
+ * real line numbers. The chunks are then copied into one {@link TokenBuffer},
+ * with identifiers renumbered into one symbol table in the order of the
+ * chunks, which gives the same symbols as lexing sequentially.
+ */
+final class ParallelTokenizer {
+    static final int MINIMUM_CHUNK = 1 << 16;
+
+    private ParallelTokenizer() {
+    }
+
+    private static class Chunk {
+        final int start;
+        final int length;
+        final int lineNumber;
+
+        TokenBuffer tokens;
+        RuntimeException error;
+
+        Chunk(int start, int length, int lineNumber) {
+            this.start = start;
+            this.length = length;
+            this.lineNumber = lineNumber;
+        }
+
+        void lex(char[] input) {
+            Tokenizer tokenizer = new Tokenizer(new CharArraySource(input, start, length), lineNumber);
+            tokens = new TokenBuffer(tokenizer.getSymbols(), length / 4 + 16);
+            try {
+                tokenizer.readAll(tokens);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+    }
+
+    static TokenBuffer tokenize(char[] input, SymbolTable symbols, ForkJoinPool pool, int minimumChunk) {
+        int chunkCount = Math.min(pool.getParallelism() * 4, input.length / minimumChunk);
+        List<Chunk> chunks = split(input, Math.max(chunkCount, 1));
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Chunk chunk : chunks)
+            tasks.add(pool.submit(() -> chunk.lex(input)));
+        for (ForkJoinTask<?> task : tasks)
+            task.join();
+
+        /* Everything up to the first error is the same as when lexing
+         * sequentially, so that is the error to report */
+        for (Chunk chunk : chunks) {
+            if (chunk.error != null)
+                throw chunk.error;
+        }
+
+        /* Every chunk but the last ends in an EOS which is dropped */
+        int tokenCount = 0;
+        int stringCount = 0;
+        for (Chunk chunk : chunks) {
+            tokenCount += chunk.tokens.size() - 1;
+            stringCount += chunk.tokens.stringCount();
+        }
+        TokenBuffer tokens = new TokenBuffer(symbols, 0);
+        tokens.reserve(tokenCount + 1, stringCount);
+
+        tasks.clear();
+        int position = 0;
+        int stringPosition = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            TokenBuffer chunkTokens = chunks.get(i).tokens;
+            SymbolTable chunkSymbols = chunkTokens.getSymbols();
+            int[] symbolMap = new int[chunkSymbols.size()];
+            for (int symbol = 0; symbol < symbolMap.length; symbol++)
+                symbolMap[symbol] = symbols.intern(chunkSymbols.getName(symbol));
+
+            int count = i == chunks.size() - 1 ? chunkTokens.size() : chunkTokens.size() - 1;
+            int to = position;
+            int stringsTo = stringPosition;
+            tasks.add(pool.submit(() -> tokens.copy(chunkTokens, count, to, symbolMap, stringsTo)));
+            position += count;
+            stringPosition += chunkTokens.stringCount();
+        }
+        for (ForkJoinTask<?> task : tasks)
+            task.join();
+        tokens.setSize(position, stringPosition);
+        return tokens;
+    }
+
+    /**
+     * Cut the input into about the given number of chunks. The scan mirrors
+     * the tokenizer: a backslash in a string escapes any character, and a
+     * newline escaped that way is not counted as a line.
+     */
+    private static List<Chunk> split(char[] input, int chunkCount) {
+        List<Chunk> chunks = new ArrayList<>(chunkCount);
+        int target = input.length / chunkCount;
+        int start = 0;
+        int startLine = 1;
+        int lineNumber = 1;
+
+        int i = 0;
+        while (i < input.length) {
+            char c = input[i++];
+            switch (c) {
+                case '\n':
+                    lineNumber++;
+                    break;
+                case '"':
+                    while (i < input.length && input[i] != '"') {
+                        if (input[i] == '\\')
+                            i++;
+                        else if (input[i] == '\n')
+                            lineNumber++;
+                        i++;
+                    }
+                    i++;
+                    continue;
+                case '/':
+                    if (i < input.length && input[i] == '/') {
+                        while (i < input.length && input[i] != '\n')
+                            i++;
+                        continue;
+                    } else if (i < input.length && input[i] == '*') {
+                        i++;
+                        while (i < input.length && !(input[i] == '*' && i + 1 < input.length && input[i + 1] == '/')) {
+                            if (input[i] == '\n')
+                                lineNumber++;
+                            i++;
+                        }
+                        i += 2;
+                    }
+                    continue;
+                default:
+                    continue;
+            }
+
+            if (i - start >= target && input.length - i >= target / 2) {
+                chunks.add(new Chunk(start, i - start, startLine));
+                start = i;
+                startLine = lineNumber;
+            }
+        }
+        chunks.add(new Chunk(start, input.length - start, startLine));
+        return chunks;
+    }
+}
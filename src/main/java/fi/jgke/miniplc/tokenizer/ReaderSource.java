@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Source which reads a {@link Reader} through a fixed size window. The window
+ * is compacted on every refill, and only grows if the characters after the
+ * mark do not fit in it.
+ */
+class ReaderSource extends CharacterSource {
+    static final int BUFFER_SIZE = 8192;
+
+    private Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    /* characters compacted out of the front of the buffer */
+    private long discarded;
+    /* -1 when there is no mark */
+    private int mark = -1;
+
+    ReaderSource(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    /* Read more of the input, returns false at the end of the input */
+    private boolean fill() {
+        if (reader == null)
+            return false;
+
+        int keep = mark < 0 ? position : mark;
+        System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+        discarded += keep;
+        position -= keep;
+        limit -= keep;
+        if (mark >= 0)
+            mark = 0;
+        if (limit == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        try {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                reader.close();
+                reader = null;
+                return false;
+            }
+            limit += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    int peek() {
+        return position < limit || fill() ? buffer[position] : EOF;
+    }
+
+    @Override
+    void skip() {
+        position++;
+    }
+
+    @Override
+    long offset() {
+        return discarded + position;
+    }
+
+    @Override
+    void mark() {
+        mark = position;
+    }
+
+    @Override
+    void clearMark() {
+        mark = -1;
+    }
+
+    @Override
+    String slice() {
+        String slice = new String(buffer, mark, position - mark);
+        mark = -1;
+        return slice;
+    }
+
+    @Override
+    boolean sliceEquals(String string) {
+        int length = position - mark;
+        if (length != string.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (buffer[mark + i] != string.charAt(i))
+                return false;
+        }
+        return true;
+    }
+}
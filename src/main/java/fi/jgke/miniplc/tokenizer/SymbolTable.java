@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Identifiers of one compilation, each interned once and numbered densely
+ * from zero in the order they were first seen.
+ *
+ * The tokenizer looks words up straight from its source, so an identifier is
+ * only turned into a string the first time it occurs.
+ */
+public class SymbolTable {
+    private String[] names = new String[16];
+    private int[] hashes = new int[16];
+    /* open addressing table of symbol + 1, zero for an empty slot */
+    private int[] table = new int[32];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int symbol) {
+        return names[symbol];
+    }
+
+    /**
+     * Get the symbol of a name, adding it if it has not been seen before.
+     */
+    public int intern(String name) {
+        int symbol = find(name);
+        return symbol >= 0 ? symbol : add(name.hashCode(), name);
+    }
+
+    /**
+     * Find the symbol of a name, or -1 if it has not been interned.
+     */
+    public int find(String name) {
+        int hash = name.hashCode();
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int symbol = table[slot] - 1;
+            if (hashes[symbol] == hash && names[symbol].equals(name))
+                return symbol;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the symbol for the characters sliced from the mark of the source,
+     * or -1 if they have not been interned.
+     */
+    int find(int hash, CharacterSource source) {
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int symbol = table[slot] - 1;
+            if (hashes[symbol] == hash && source.sliceEquals(names[symbol]))
+                return symbol;
+        }
+        return -1;
+    }
+
+    private int add(int hash, String name) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int symbol = size++;
+        names[symbol] = name;
+        hashes[symbol] = hash;
+
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        } else {
+            insert(symbol);
+        }
+        return symbol;
+    }
+
+    private void insert(int symbol) {
+        int mask = table.length - 1;
+        int slot = hashes[symbol] & mask;
+        while (table[slot] != 0)
+            slot = (slot + 1) & mask;
+        table[slot] = symbol + 1;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int symbol = 0; symbol < size; symbol++)
+            insert(symbol);
+    }
+}
@@ -20,23 +20,42 @@ import fi.jgke.miniplc.interpreter.VariableType;
 public class Token {
     private final TokenValue value;
     private final Object content;
+    private final int symbol;
 
+    /**
+     * The line on which the token ends. Only string constants can span
+     * several lines.
+     */
     public int getLineNumber() {
         return lineNumber;
     }
 
     private final int lineNumber;
+    private final int column;
 
+    /**
+     * Create a token which is not from any source, such as one built by
+     * hand. Its line number and column are zero.
+     */
     public Token(TokenValue value, Object content) {
+        this(value, content, -1, 0, 0);
+    }
+
+    /**
+     * Create a token at a position of the source. An identifier also carries
+     * its symbol from the tokenizer's {@link SymbolTable}, other tokens use
+     * -1.
+     */
+    public Token(TokenValue value, Object content, int symbol, int lineNumber, int column) {
         this.value = value;
         this.content = content;
-        this.lineNumber = TokenQueue.getLineNumber();
+        this.symbol = symbol;
+        this.lineNumber = lineNumber;
+        this.column = column;
     }
 
     public Token(TokenValue value) {
-        this.value = value;
-        this.content = null;
-        this.lineNumber = TokenQueue.getLineNumber();
+        this(value, null);
     }
 
     public TokenValue getValue() {
@@ -55,6 +74,21 @@ public class Token {
         return (String) content;
     }
 
+    /**
+     * The symbol of an identifier, or -1 for other tokens and tokens not
+     * created by a tokenizer.
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * The column, counting from one, at which the token starts.
+     */
+    public int getColumn() {
+        return column;
+    }
+
     @Override
     public String toString() {
         String newline = this.value.equals(TokenValue.SEMICOLON) || this.value.equals(TokenValue.DO) ? "\n" : " ";
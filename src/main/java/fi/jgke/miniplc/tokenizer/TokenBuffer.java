@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tokenizer;
+
+import fi.jgke.miniplc.interpreter.VariableType;
+
+import java.util.Arrays;
+
+/**
+ * Tokens of a whole input, packed into parallel arrays instead of one object
+ * per token.
+ *
+ * Every token has a kind, a line number, a column and an int payload: the
+ * value of an integer constant, 0 or 1 for a boolean constant, the ordinal of
+ * a type, the symbol of an identifier, or the index of a string constant in
+ * the string pool. Tokens are read by index, and a {@link Token} is only
+ * created when one is asked for.
+ */
+public class TokenBuffer {
+    private static final TokenValue[] tokenValues = TokenValue.values();
+    private static final VariableType[] variableTypes = VariableType.values();
+
+    private final SymbolTable symbols;
+
+    private byte[] values;
+    private int[] lineNumbers;
+    private int[] columns;
+    private int[] payloads;
+    private int size;
+
+    private String[] strings;
+    private int stringCount;
+
+    TokenBuffer(SymbolTable symbols, int capacity) {
+        this.symbols = symbols;
+        this.values = new byte[capacity];
+        this.lineNumbers = new int[capacity];
+        this.columns = new int[capacity];
+        this.payloads = new int[capacity];
+        this.strings = new String[Math.max(capacity / 16, 16)];
+    }
+
+    void add(TokenValue value, int payload, int lineNumber, int column) {
+        if (size == values.length)
+            grow(size * 2 + 16);
+        values[size] = (byte) value.ordinal();
+        lineNumbers[size] = lineNumber;
+        columns[size] = column;
+        payloads[size] = payload;
+        size++;
+    }
+
+    /**
+     * Add a string constant to the pool, returning its payload.
+     */
+    int addString(String string) {
+        if (stringCount == strings.length)
+            strings = Arrays.copyOf(strings, stringCount * 2 + 16);
+        strings[stringCount] = string;
+        return stringCount++;
+    }
+
+    private void grow(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+        lineNumbers = Arrays.copyOf(lineNumbers, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+    }
+
+    /**
+     * Drop the room reserved for tokens which were never added.
+     */
+    void trimToSize() {
+        if (values.length > size)
+            grow(size);
+        if (strings.length > stringCount)
+            strings = Arrays.copyOf(strings, stringCount);
+    }
+
+    /**
+     * Reserve room for tokens and strings which are copied in with
+     * {@link #copy} and then committed with {@link #setSize}.
+     */
+    void reserve(int tokens, int strings) {
+        if (tokens > values.length)
+            grow(tokens);
+        if (strings > this.strings.length)
+            this.strings = Arrays.copyOf(this.strings, strings);
+    }
+
+    void setSize(int size, int stringCount) {
+        this.size = size;
+        this.stringCount = stringCount;
+    }
+
+    /**
+     * Copy tokens from another buffer into this one at the given positions,
+     * giving identifiers the symbols in the symbol map and moving string
+     * constants after the given string index. Copies into distinct ranges
+     * can run concurrently.
+     */
+    void copy(TokenBuffer from, int count, int position, int[] symbolMap, int stringPosition) {
+        System.arraycopy(from.values, 0, values, position, count);
+        System.arraycopy(from.lineNumbers, 0, lineNumbers, position, count);
+        System.arraycopy(from.columns, 0, columns, position, count);
+        System.arraycopy(from.payloads, 0, payloads, position, count);
+        System.arraycopy(from.strings, 0, strings, stringPosition, from.stringCount);
+        for (int i = position; i < position + count; i++) {
+            if (values[i] == TokenValue.IDENTIFIER.ordinal())
+                payloads[i] = symbolMap[payloads[i]];
+            else if (values[i] == TokenValue.STRING_CONST.ordinal())
+                payloads[i] += stringPosition;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int stringCount() {
+        return stringCount;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public TokenValue getValue(int index) {
+        return tokenValues[values[index]];
+    }
+
+    public int getLineNumber(int index) {
+        return lineNumbers[index];
+    }
+
+    public int getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getInt(int index) {
+        return payloads[index];
+    }
+
+    public boolean getBool(int index) {
+        return payloads[index] != 0;
+    }
+
+    public VariableType getVariableType(int index) {
+        return variableTypes[payloads[index]];
+    }
+
+    /**
+     * The symbol of an identifier.
+     */
+    public int getSymbol(int index) {
+        return payloads[index];
+    }
+
+    /**
+     * The name of an identifier or the text of a string constant.
+     */
+    public String getString(int index) {
+        if (values[index] == TokenValue.IDENTIFIER.ordinal())
+            return symbols.getName(payloads[index]);
+        return strings[payloads[index]];
+    }
+
+    /**
+     * Create the token at the given index, equal to the one the tokenizer
+     * would have returned.
+     */
+    public Token getToken(int index) {
+        TokenValue value = getValue(index);
+        String text = value == TokenValue.IDENTIFIER || value == TokenValue.STRING_CONST ? getString(index) : null;
+        return Tokenizer.createToken(value, payloads[index], text, lineNumbers[index], columns[index]);
+    }
+}
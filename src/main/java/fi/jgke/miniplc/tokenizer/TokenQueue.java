@@ -18,25 +18,80 @@ package fi.jgke.miniplc.tokenizer;
 import fi.jgke.miniplc.exception.UnexpectedCharacterException;
 import fi.jgke.miniplc.exception.UnexpectedTokenException;
 
-import java.util.Collections;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
 
 public class TokenQueue {
+    private final SymbolTable symbols;
+    /* an input lexed up front is read from a buffer, one lexed on demand
+     * or built by hand from a queue */
+    private final TokenBuffer buffer;
+    private int position;
     private final Queue<Token> tokens;
+    /* set while a streaming queue has not yet lexed the end of the input */
+    private Tokenizer tokenizer;
 
     public TokenQueue(String input) throws UnexpectedCharacterException {
-        tokens = new Tokenizer().tokenize(input);
+        this(new Tokenizer().tokenizePacked(input));
+    }
+
+    /**
+     * Lex a large input in parallel on the given pool.
+     */
+    public TokenQueue(String input, ForkJoinPool pool) throws UnexpectedCharacterException {
+        this(new Tokenizer().tokenizePacked(input, pool));
+    }
+
+    public TokenQueue(TokenBuffer buffer) {
+        this.symbols = buffer.getSymbols();
+        this.buffer = buffer;
+        this.tokens = null;
+    }
+
+    /**
+     * Create a streaming queue, which lexes the input only as tokens are
+     * requested. Lexing errors are thrown from {@link #element()} and
+     * {@link #remove()} instead of the constructor.
+     */
+    public TokenQueue(Reader input) {
+        this(new Tokenizer(input));
+    }
+
+    /**
+     * Create a streaming queue over a memory mapped UTF-8 file. The channel
+     * must stay open until the queue has been consumed.
+     */
+    public TokenQueue(FileChannel input) throws IOException {
+        this(new Tokenizer(input));
+    }
+
+    TokenQueue(Tokenizer tokenizer) {
+        this(new ArrayDeque<>(1), tokenizer.getSymbols());
+        this.tokenizer = tokenizer;
+    }
+
+    private TokenQueue(Queue<Token> tokens, SymbolTable symbols) {
+        this.symbols = symbols;
+        this.buffer = null;
+        this.tokens = tokens;
     }
 
     public static TokenQueue of(Token... tokens) {
-        TokenQueue tokenQueue = new TokenQueue("");
-        tokenQueue.getExpectedToken(TokenValue.EOS);
-        Collections.addAll(tokenQueue.tokens, tokens);
-        return tokenQueue;
+        return new TokenQueue(new ArrayDeque<>(Arrays.asList(tokens)), new SymbolTable());
     }
 
-    public static int getLineNumber() {
-        return Tokenizer.getLineNumber();
+    /**
+     * The symbols of the identifiers in this queue. A streaming queue adds
+     * symbols as it lexes.
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
     }
 
     public Token getExpectedToken(TokenValue type) throws UnexpectedTokenException {
@@ -46,15 +101,53 @@ public class TokenQueue {
         throw new UnexpectedTokenException(token, type);
     }
 
+    /* Lex one token of lookahead if the queue is streaming and empty */
+    private void fill() {
+        if (tokens.isEmpty() && tokenizer != null) {
+            Token token = tokenizer.nextToken();
+            if (token.getValue().equals(TokenValue.EOS))
+                tokenizer = null;
+            tokens.add(token);
+        }
+    }
+
+    /**
+     * The kind of the next token. Unlike {@link #element()}, this does not
+     * create a token for an input lexed up front.
+     */
+    public TokenValue peekValue() {
+        if (buffer == null)
+            return element().getValue();
+        if (position == buffer.size())
+            throw new NoSuchElementException();
+        return buffer.getValue(position);
+    }
+
     public Token remove() {
-        return tokens.remove();
+        if (buffer == null) {
+            fill();
+            return tokens.remove();
+        }
+        Token token = element();
+        position++;
+        return token;
     }
 
     public boolean isEmpty() {
-        return tokens.isEmpty();
+        if (buffer == null) {
+            fill();
+            return tokens.isEmpty();
+        }
+        return position == buffer.size();
     }
 
     public Token element() {
-        return tokens.element();
+        if (buffer == null) {
+            fill();
+            return tokens.element();
+        }
+        if (position == buffer.size())
+            throw new NoSuchElementException();
+        return buffer.getToken(position);
     }
 }
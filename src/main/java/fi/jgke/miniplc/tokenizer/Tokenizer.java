@@ -20,271 +20,492 @@ import fi.jgke.miniplc.exception.EndOfInputException;
 import fi.jgke.miniplc.exception.UnexpectedCharacterException;
 import fi.jgke.miniplc.interpreter.VariableType;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
+import static fi.jgke.miniplc.tokenizer.CharacterSource.EOF;
+
+/**
+ * Lexer for MiniPL source.
+ *
+ * The input is read one character at a time from a {@link CharacterSource},
+ * and words and literals are sliced out of the source once they have been
+ * fully scanned.
+ *
+ * A tokenizer created over a {@link Reader} or a file lexes on demand through
+ * {@link #nextToken()}, keeping only a window of the input in memory.
+ */
 public class Tokenizer {
 
-    private static final Map<Character, Character> escapeMap;
-    private static final Map<String, TokenValue> keywords;
-    private static final Map<Character, TokenValue> simpleTokens;
-    private static final Map<TokenValue, Object> values;
+    private static final TokenValue[] simpleTokens;
+    private static final String[] keywordWords;
+    private static final VariableType[] variableTypes = VariableType.values();
+
+    private final SymbolTable symbols;
+    private CharacterSource source;
 
-    private static int lineNumber;
+    private int lineNumber = 1;
+    /* offset of the first character of the current line */
+    private long lineStart;
+    /* offset, line and column at which the token being lexed starts */
+    private long tokenOffset;
+    private int tokenLine;
+    private int column;
+    /* payload and text of the token just lexed, as stored in a TokenBuffer */
+    private int payload;
+    private String text;
 
     public Tokenizer() {
-        lineNumber = 1;
+        this((CharacterSource) null);
     }
 
-    static {
-        escapeMap = getEscapeCharacters();
-        keywords = getKeywords();
-        simpleTokens = getSimpleTokens();
-        values = getTypeValues();
-    }
-
-    private static Map<Character, Character> getEscapeCharacters() {
-        Map<Character, Character> escapeCharacters = new HashMap<>();
-        escapeCharacters.put('"', '"');
-        escapeCharacters.put('n', '\n');
-        escapeCharacters.put('t', '\t');
-        return escapeCharacters;
-    }
-
-    private static Map<String, TokenValue> getKeywords() {
-        Map<String, TokenValue> keywords = new HashMap<>();
-        keywords.put("assert", TokenValue.ASSERT);
-        keywords.put("bool", TokenValue.BOOL);
-        keywords.put("do", TokenValue.DO);
-        keywords.put("end", TokenValue.END);
-        keywords.put("for", TokenValue.FOR);
-        keywords.put("in", TokenValue.IN);
-        keywords.put("int", TokenValue.INT);
-        keywords.put("print", TokenValue.PRINT);
-        keywords.put("read", TokenValue.READ);
-        keywords.put("string", TokenValue.STRING);
-        keywords.put("var", TokenValue.VAR);
-        return keywords;
-    }
-
-    private static Map<Character, TokenValue> getSimpleTokens() {
-        Map<Character, TokenValue> simpleTokens = new HashMap<>();
-        simpleTokens.put('!', TokenValue.NOT);
-        simpleTokens.put('&', TokenValue.AND);
-        simpleTokens.put('(', TokenValue.OPEN_BRACE);
-        simpleTokens.put(')', TokenValue.CLOSE_BRACE);
-        simpleTokens.put('*', TokenValue.TIMES);
-        simpleTokens.put('+', TokenValue.PLUS);
-        simpleTokens.put('-', TokenValue.MINUS);
-        simpleTokens.put(';', TokenValue.SEMICOLON);
-        simpleTokens.put('<', TokenValue.LESS_THAN);
-        simpleTokens.put('=', TokenValue.EQUALS);
-        return simpleTokens;
+    public Tokenizer(Reader reader) {
+        this(new ReaderSource(reader, ReaderSource.BUFFER_SIZE));
     }
 
-    private static Map<TokenValue, Object> getTypeValues() {
-        Map<TokenValue, Object> values = new HashMap<>();
-        values.put(TokenValue.BOOL, VariableType.BOOL);
-        values.put(TokenValue.INT, VariableType.INT);
-        values.put(TokenValue.STRING, VariableType.STRING);
-        return values;
+    /**
+     * Lex a UTF-8 file by memory mapping it. The channel must stay open until
+     * the end of the input has been lexed.
+     */
+    public Tokenizer(FileChannel channel) throws IOException {
+        this(new MappedFileSource(channel, MappedFileSource.WINDOW_SIZE));
     }
 
-    private boolean isNumber(Character c) {
-        return c != null && Character.isDigit(c);
+    /**
+     * Lex a part of a larger input, which starts at the given line, sharing
+     * the symbols of the identifiers with the other parts.
+     */
+    public Tokenizer(String input, int lineNumber, SymbolTable symbols) {
+        this(new CharArraySource(input.toCharArray(), 0, input.length()), lineNumber, symbols);
     }
 
-    private boolean isLetter(Character c) {
-        return c != null && Character.isLetter(c);
+    Tokenizer(CharacterSource source) {
+        this(source, 1);
     }
 
-    private boolean isIdentifierCharacter(Character c) {
-        return isNumber(c) || isLetter(c);
+    /* Lex a part of a larger input, which starts at the given line */
+    Tokenizer(CharacterSource source, int lineNumber) {
+        this(source, lineNumber, new SymbolTable());
     }
 
-    private Token readToken(Queue<Character> input) throws UnexpectedCharacterException {
-        flushWhitespace(input);
-        if (input.isEmpty())
-            return new Token(TokenValue.EOS);
-
-        Character character = input.remove();
+    private Tokenizer(CharacterSource source, int lineNumber, SymbolTable symbols) {
+        this.source = source;
+        this.lineNumber = lineNumber;
+        this.symbols = symbols;
+    }
+    static {
+        simpleTokens = getSimpleTokens();
+        keywordWords = getKeywordWords();
+    }
 
-        if (simpleTokens.containsKey(character))
-            return new Token(simpleTokens.get(character));
+    /**
+     * Reserved words, with the token each of them is lexed into.
+     */
+    private enum Keyword {
+        ASSERT("assert", TokenValue.ASSERT, 0),
+        BOOL("bool", TokenValue.TYPE, VariableType.BOOL.ordinal()),
+        DO("do", TokenValue.DO, 0),
+        END("end", TokenValue.END, 0),
+        FALSE("false", TokenValue.BOOL_CONST, 0),
+        FOR("for", TokenValue.FOR, 0),
+        IN("in", TokenValue.IN, 0),
+        INT("int", TokenValue.TYPE, VariableType.INT.ordinal()),
+        PRINT("print", TokenValue.PRINT, 0),
+        READ("read", TokenValue.READ, 0),
+        STRING("string", TokenValue.TYPE, VariableType.STRING.ordinal()),
+        TRUE("true", TokenValue.BOOL_CONST, 1),
+        VAR("var", TokenValue.VAR, 0);
+
+        private final String word;
+        private final TokenValue value;
+        private final int payload;
+
+        Keyword(String word, TokenValue value, int payload) {
+            this.word = word;
+            this.value = value;
+            this.payload = payload;
+        }
 
-        switch (character) {
-            case '/':
-                return handleCommentOrDivide(input);
+        /* No two keywords share both their first character and length, so
+         * these pick the only keyword a word could be */
+        static Keyword candidate(char initial, int length) {
+            switch (initial) {
+                case 'a':
+                    return length == 6 ? ASSERT : null;
+                case 'b':
+                    return length == 4 ? BOOL : null;
+                case 'd':
+                    return length == 2 ? DO : null;
+                case 'e':
+                    return length == 3 ? END : null;
+                case 'f':
+                    return length == 3 ? FOR : length == 5 ? FALSE : null;
+                case 'i':
+                    return length == 2 ? IN : length == 3 ? INT : null;
+                case 'p':
+                    return length == 5 ? PRINT : null;
+                case 'r':
+                    return length == 4 ? READ : null;
+                case 's':
+                    return length == 6 ? STRING : null;
+                case 't':
+                    return length == 4 ? TRUE : null;
+                case 'v':
+                    return length == 3 ? VAR : null;
+                default:
+                    return null;
+            }
+        }
+    }
 
-            case ':':
-                return handleAssignOrColon(input);
+    private static char unescape(char c) {
+        switch (c) {
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            default:
+                return c;
+        }
+    }
 
-            case '.':
-                return handleRange(input);
+    /* The content of a keyword token is the keyword itself */
+    private static String[] getKeywordWords() {
+        String[] words = new String[TokenValue.values().length];
+        for (Keyword keyword : Keyword.values()) {
+            if (keyword.value != TokenValue.TYPE && keyword.value != TokenValue.BOOL_CONST)
+                words[keyword.value.ordinal()] = keyword.word;
+        }
+        return words;
+    }
 
-            case '"':
-                return handleString(input);
+    /**
+     * Create a token from its packed form, see {@link TokenBuffer}. The text
+     * is only used for identifiers and string constants.
+     */
+    static Token createToken(TokenValue value, int payload, String text, int lineNumber, int column) {
+        switch (value) {
+            case INT_CONST:
+                return new Token(value, payload, -1, lineNumber, column);
+            case BOOL_CONST:
+                return new Token(value, payload != 0, -1, lineNumber, column);
+            case TYPE:
+                return new Token(value, variableTypes[payload], -1, lineNumber, column);
+            case STRING_CONST:
+                return new Token(value, text, -1, lineNumber, column);
+            case IDENTIFIER:
+                return new Token(value, text, payload, lineNumber, column);
+            default:
+                return new Token(value, keywordWords[value.ordinal()], -1, lineNumber, column);
         }
+    }
 
-        if (isNumber(character))
-            return handleNumber(input, character);
+    private static TokenValue[] getSimpleTokens() {
+        TokenValue[] simpleTokens = new TokenValue[128];
+        simpleTokens['!'] = TokenValue.NOT;
+        simpleTokens['&'] = TokenValue.AND;
+        simpleTokens['('] = TokenValue.OPEN_BRACE;
+        simpleTokens[')'] = TokenValue.CLOSE_BRACE;
+        simpleTokens['*'] = TokenValue.TIMES;
+        simpleTokens['+'] = TokenValue.PLUS;
+        simpleTokens['-'] = TokenValue.MINUS;
+        simpleTokens[';'] = TokenValue.SEMICOLON;
+        simpleTokens['<'] = TokenValue.LESS_THAN;
+        simpleTokens['='] = TokenValue.EQUALS;
+        return simpleTokens;
+    }
 
-        if (isLetter(character))
-            return handleToken(input, character);
+    private static boolean isNumber(int c) {
+        return c != EOF && Character.isDigit((char) c);
+    }
 
-        throw new UnexpectedCharacterException(lineNumber, character);
+    private static boolean isLetter(int c) {
+        return c != EOF && Character.isLetter((char) c);
     }
 
-    private Token handleAssignOrColon(Queue<Character> input) {
-        if (!input.isEmpty() && input.peek() == '=') {
-            input.remove();
-            return new Token(TokenValue.ASSIGN);
-        }
-        return new Token(TokenValue.COLON);
+    private static boolean isIdentifierCharacter(int c) {
+        return isNumber(c) || isLetter(c);
     }
 
-    private Token handleCommentOrDivide(Queue<Character> input) {
-        if (!input.isEmpty()) {
-            if (input.peek() == '/') {
-                return handleSingleLineComment(input);
+    private char next() {
+        int c = source.peek();
+        if (c == EOF) {
+            throw new EndOfInputException();
+        }
+        source.skip();
+        return (char) c;
+    }
 
-            } else if (input.peek() == '*') {
-                input.remove();
-                if (!input.isEmpty() && input.element() == '\n') {
-                    lineNumber++;
-                }
+    private void newLine() {
+        lineNumber++;
+        lineStart = source.offset();
+    }
 
-                return handleMultilineComment(input);
+    /* Lex the next token, leaving its payload and text in the fields */
+    private TokenValue readToken() throws UnexpectedCharacterException {
+        payload = 0;
+        while (true) {
+            flushWhitespace();
+            tokenOffset = source.offset();
+            tokenLine = lineNumber;
+            column = (int) (tokenOffset - lineStart) + 1;
+            int peeked = source.peek();
+            if (peeked == EOF)
+                return TokenValue.EOS;
+
+            char character = (char) peeked;
+            if (isIdentifierCharacter(character)) {
+                source.mark();
+                source.skip();
+                return isNumber(character) ? handleNumber(character) : handleToken(character);
+            }
+            source.skip();
+
+            if (character < simpleTokens.length && simpleTokens[character] != null)
+                return simpleTokens[character];
+
+            switch (character) {
+                case '/':
+                    if (source.peek() == '/') {
+                        skipSingleLineComment();
+                        continue;
+                    } else if (source.peek() == '*') {
+                        source.skip();
+                        skipMultilineComment();
+                        continue;
+                    }
+                    return TokenValue.DIVIDE;
+
+                case ':':
+                    return handleAssignOrColon();
+
+                case '.':
+                    return handleRange();
+
+                case '"':
+                    return handleString();
             }
+
+            throw new UnexpectedCharacterException(lineNumber, character);
         }
-        return new Token(TokenValue.DIVIDE);
     }
 
-    private void flushWhitespace(Queue<Character> input) {
-        while (!input.isEmpty() && Character.isWhitespace(input.element())) {
-            Character character = input.remove();
-            if (character == '\n')
-                lineNumber++;
+    private TokenValue handleAssignOrColon() {
+        if (source.peek() == '=') {
+            source.skip();
+            return TokenValue.ASSIGN;
         }
+        return TokenValue.COLON;
     }
 
-    private Token handleRange(Queue<Character> input) {
-        if (input.isEmpty()) {
-            throw new EndOfInputException();
+    private void flushWhitespace() {
+        int c;
+        while ((c = source.peek()) != EOF && Character.isWhitespace((char) c)) {
+            source.skip();
+            if (c == '\n')
+                newLine();
         }
-        char c = input.remove();
+    }
+
+    private TokenValue handleRange() {
+        char c = next();
         if (c != '.') {
             throw new UnexpectedCharacterException(lineNumber, c);
         }
-        return new Token(TokenValue.RANGE);
+        return TokenValue.RANGE;
     }
 
-    private Token handleSingleLineComment(Queue<Character> input) {
-        while (!input.isEmpty())
-            if (input.remove() == '\n')
+    /* The line is counted even if the comment ends the input without a newline */
+    private void skipSingleLineComment() {
+        int c;
+        while ((c = source.peek()) != EOF) {
+            source.skip();
+            if (c == '\n')
                 break;
-        lineNumber++;
-        return readToken(input);
+        }
+        newLine();
     }
 
-    private Token handleToken(Queue<Character> input, Character initial) {
-        String token = "" + initial;
+    private void skipMultilineComment() {
         while (true) {
-            if (input.isEmpty()) {
-                return getTokenFromWord(token);
-            }
-
-            Character c = input.peek();
-            if (isIdentifierCharacter(c))
-                token += c;
-            else {
-                return getTokenFromWord(token);
+            char c = next();
+            if (c == '\n') {
+                newLine();
+            } else if (c == '*' && source.peek() == '/') {
+                source.skip();
+                return;
             }
-            input.remove();
         }
     }
 
-    private Token getTokenFromWord(String token) {
-        if (token.equals("bool"))
-            return new Token(TokenValue.TYPE, VariableType.BOOL);
-        else if (token.equals("int"))
-            return new Token(TokenValue.TYPE, VariableType.INT);
-        else if (token.equals("string"))
-            return new Token(TokenValue.TYPE, VariableType.STRING);
-        else if (token.equals("true"))
-            return new Token(TokenValue.BOOL_CONST, true);
-        else if (token.equals("false"))
-            return new Token(TokenValue.BOOL_CONST, false);
-        TokenValue type = keywords.getOrDefault(token, TokenValue.IDENTIFIER);
-        Object tokenValue = values.getOrDefault(type, token);
-        return new Token(type, tokenValue);
-    }
+    /* Keywords and words which have already been interned as identifiers are
+     * matched without slicing them out of the source */
+    private TokenValue handleToken(char initial) {
+        int hash = initial;
+        int length = 1;
+        int c;
+        while (isIdentifierCharacter(c = source.peek())) {
+            hash = 31 * hash + c;
+            length++;
+            source.skip();
+        }
 
+        Keyword keyword = Keyword.candidate(initial, length);
+        if (keyword != null && source.sliceEquals(keyword.word)) {
+            source.clearMark();
+            payload = keyword.payload;
+            return keyword.value;
+        }
+
+        int symbol = symbols.find(hash, source);
+        if (symbol < 0)
+            symbol = symbols.intern(source.slice());
+        else
+            source.clearMark();
+        payload = symbol;
+        text = symbols.getName(symbol);
+        return TokenValue.IDENTIFIER;
+    }
 
-    private Token handleNumber(Queue<Character> input, Character initial) {
-        String token = "" + initial;
+    /* Integer constants are accumulated while scanning; only a constant that
+     * overflows is sliced, so that it fails exactly like Integer.parseInt */
+    private TokenValue handleNumber(char initial) {
+        long value = Character.digit(initial, 10);
         while (true) {
-            Character c = input.peek();
-            if (isNumber(c))
-                token += c;
-            else if (isLetter(c))
-                throw new UnexpectedCharacterException(lineNumber, c);
-            else
-                return new Token(TokenValue.INT_CONST, Integer.parseInt(token));
-            input.remove();
+            int c = source.peek();
+            if (isNumber(c)) {
+                if (value <= Integer.MAX_VALUE)
+                    value = value * 10 + Character.digit((char) c, 10);
+            } else if (isLetter(c)) {
+                throw new UnexpectedCharacterException(lineNumber, (char) c);
+            } else if (value > Integer.MAX_VALUE) {
+                payload = Integer.parseInt(source.slice());
+                return TokenValue.INT_CONST;
+            } else {
+                source.clearMark();
+                payload = (int) value;
+                return TokenValue.INT_CONST;
+            }
+            source.skip();
         }
     }
 
-    private Token handleString(Queue<Character> input) {
-        String token = "";
+    /* Escape-free literals are sliced directly, others are copied in runs
+     * between the escapes */
+    private TokenValue handleString() {
+        source.mark();
+        StringBuilder builder = null;
         while (true) {
-            if (input.isEmpty()) {
+            int c = source.peek();
+            if (c == EOF)
                 throw new EndOfInputException();
+            if (c == '"') {
+                String content = source.slice();
+                source.skip();
+                text = builder == null ? content : builder.append(content).toString();
+                return TokenValue.STRING_CONST;
             }
-            char c = input.remove();
-            if (c == '\n')
-                lineNumber++;
-            if (c == '"')
-                return new Token(TokenValue.STRING_CONST, token);
             if (c == '\\') {
-                char cc = input.remove();
-                c = escapeMap.getOrDefault(cc, cc);
+                if (builder == null)
+                    builder = new StringBuilder();
+                builder.append(source.slice());
+                source.skip();
+                builder.append(unescape(next()));
+                source.mark();
+                continue;
             }
-            token += c;
+            source.skip();
+            if (c == '\n')
+                newLine();
         }
     }
 
-    private Token handleMultilineComment(Queue<Character> input) {
-        try {
-            while (input.remove() != '*' || input.element() != '/') {
-                if (input.peek() == '\n') {
-                    lineNumber++;
-                }
-            }
-            // remove the '/'
-            input.remove();
-        } catch (NoSuchElementException e) {
-            throw new EndOfInputException();
-        }
-
-        return readToken(input);
+    public Queue<Token> tokenize(String input) throws UnexpectedCharacterException {
+        return tokenize(input.toCharArray(), 0, input.length());
     }
 
-    public Queue<Token> tokenize(String input) throws UnexpectedCharacterException {
+    public Queue<Token> tokenize(char[] input, int offset, int length) throws UnexpectedCharacterException {
+        source = new CharArraySource(input, offset, length);
+
         Queue<Token> tokenQueue = new ArrayDeque<>();
-        Queue<Character> queue = new ArrayDeque<>();
-        for (Character c : input.toCharArray())
-            queue.add(c);
-        while (!queue.isEmpty()) {
-            Token token = readToken(queue);
-            if (token.getValue().equals(TokenValue.EOS))
-                break;
+        while (true) {
+            Token token = nextToken();
             tokenQueue.add(token);
+            if (token.getValue().equals(TokenValue.EOS))
+                return tokenQueue;
+        }
+    }
+
+    /**
+     * Lex the input into a {@link TokenBuffer}, without creating a
+     * {@link Token} for every token.
+     */
+    public TokenBuffer tokenizePacked(String input) throws UnexpectedCharacterException {
+        source = new CharArraySource(input.toCharArray(), 0, input.length());
+        TokenBuffer tokens = new TokenBuffer(symbols, input.length() / 4 + 16);
+        readAll(tokens);
+        tokens.trimToSize();
+        return tokens;
+    }
+
+    /**
+     * Lex the input in chunks on the given pool. The tokens, their symbols
+     * and any error thrown are the same as from {@link #tokenizePacked(String)}.
+     */
+    public TokenBuffer tokenizePacked(String input, ForkJoinPool pool) throws UnexpectedCharacterException {
+        return ParallelTokenizer.tokenize(input.toCharArray(), symbols, pool, ParallelTokenizer.MINIMUM_CHUNK);
+    }
+
+    /* Lex everything up to and including EOS */
+    void readAll(TokenBuffer tokens) {
+        while (true) {
+            TokenValue value = readToken();
+            if (value == TokenValue.STRING_CONST)
+                payload = tokens.addString(text);
+            tokens.add(value, payload, lineNumber, column);
+            if (value == TokenValue.EOS)
+                return;
         }
-        tokenQueue.add(new Token(TokenValue.EOS));
-        return tokenQueue;
     }
 
-    public static int getLineNumber() {
-        return lineNumber;
+    /**
+     * Lex the next token from the input. Returns EOS once the input has been
+     * exhausted.
+     */
+    public Token nextToken() throws UnexpectedCharacterException {
+        TokenValue value = readToken();
+        return createToken(value, payload, text, lineNumber, column);
+    }
+
+    /**
+     * The offset in the input at which the last token starts. If lexing it
+     * failed, this is where the failed token starts.
+     */
+    public long getTokenOffset() {
+        return tokenOffset;
+    }
+
+    /**
+     * The line on which the last token, or the failed token, starts.
+     */
+    public int getTokenLine() {
+        return tokenLine;
+    }
+
+    /**
+     * The column at which the last token, or the failed token, starts.
+     */
+    public int getTokenColumn() {
+        return column;
+    }
+
+    /**
+     * The identifiers seen by this tokenizer so far.
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
     }
 }
@@ -21,9 +21,14 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.jar.JarFile;
 
 import static org.junit.Assert.*;
 
@@ -81,4 +86,70 @@ public class MainTest {
             Files.delete(p);
         }
     }
+
+    @Test
+    public void testCompile() throws Exception {
+        Path p = Files.createTempFile(null, ".mpl");
+        Path jar = Files.createTempFile(null, ".jar");
+        try {
+            Files.write(p, "var i : int; for i in 1..3 do print i; end for;".getBytes());
+            String[] args = {"compile", p.toAbsolutePath().toString(), jar.toAbsolutePath().toString()};
+            assertEquals(0, Miniplc.app(args, null, null));
+
+            String mainClass;
+            try (JarFile file = new JarFile(jar.toFile())) {
+                mainClass = file.getManifest().getMainAttributes().getValue("Main-Class");
+                assertNull(file.getEntry("fi/jgke/miniplc/ast/Parser.class"));
+            }
+
+            /* the jar runs without anything else of the interpreter */
+            PrintStream out = System.out;
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+                Method main = loader.loadClass(mainClass).getMethod("main", String[].class);
+                System.setOut(new PrintStream(outputStream));
+                main.invoke(null, (Object) new String[0]);
+            } finally {
+                System.setOut(out);
+            }
+            assertEquals("123", outputStream.toString());
+        } finally {
+            Files.delete(p);
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    public void testScriptNamedCompile() throws Exception {
+        /* the script is looked up in the working directory */
+        Path p = Paths.get("compile");
+        assertFalse(Files.exists(p));
+        try {
+            Files.write(p, "print \"hello world\";".getBytes());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            PrintStream ps = new PrintStream(outputStream);
+            ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+            int status = Miniplc.app(new String[]{"compile"}, ps, new PrintStream(errorStream));
+            assertEquals(errorStream.toString(), 0, status);
+            assertTrue(outputStream.toString().contains("hello world"));
+        } finally {
+            Files.delete(p);
+        }
+    }
+
+    @Test
+    public void testCompileError() throws Exception {
+        Path p = Files.createTempFile(null, ".mpl");
+        try {
+            Files.write(p, "print 1; syntax error".getBytes());
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            PrintStream ps = new PrintStream(outputStream);
+            int status = Miniplc.app(new String[]{"compile", p.toAbsolutePath().toString()}, null, ps);
+            assertNotEquals(status, 0);
+            assertTrue(outputStream.toString().contains("Unexpected token"));
+            assertFalse(Files.exists(p.resolveSibling(p.getFileName().toString().replace(".mpl", ".jar"))));
+        } finally {
+            Files.delete(p);
+        }
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.builder.Builder;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParserTest {
+    private static Block parse(String program) {
+        Parser parser = new Parser(new TokenQueue(program));
+        Block block = parser.parseProgram();
+        parser.parseEnd();
+        return block;
+    }
+
+    @Test
+    public void buildsTypedNodes() {
+        List<Statement> statements = parse("var x : int := 1 + 2;\n" +
+                "for x in 0..(x) do\n" +
+                "  print !true;\n" +
+                "end for;\n" +
+                "read x; assert (x = 3);").getStatements();
+        assertEquals(4, statements.size());
+
+        VarDecl declaration = (VarDecl) statements.get(0);
+        assertEquals("x", declaration.getName());
+        assertEquals(VariableType.INT, declaration.getType());
+        Binary sum = (Binary) declaration.getValue();
+        assertEquals(TokenValue.PLUS, sum.getOperator().getValue());
+        assertEquals(1, ((Literal) sum.getLeft()).getValue().getValue());
+
+        For loop = (For) statements.get(1);
+        assertEquals(2, loop.getLineNumber());
+        assertEquals("x", ((VarRef) loop.getEnd()).getName());
+        Print print = (Print) loop.getBody().getStatements().get(0);
+        assertEquals(3, print.getLineNumber());
+        assertEquals(3, print.getColumn());
+        assertTrue(print.getValue() instanceof Unary);
+
+        assertEquals("x", ((Read) statements.get(2)).getName());
+        assertEquals(TokenValue.EQUALS, ((Binary) ((Assert) statements.get(3)).getCondition()).getOperator().getValue());
+    }
+
+    @Test
+    public void missingInitializerIsNull() {
+        VarDecl declaration = (VarDecl) parse("var s : string;").getStatements().get(0);
+        assertNull(declaration.getValue());
+    }
+
+    private static String run(String program, boolean tree) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Context context = new Context(new InputOutput(new PrintStream(output)));
+        TokenQueue queue = new TokenQueue(program);
+        String result = "ok";
+        try {
+            if (tree) {
+                Parser parser = new Parser(queue);
+                Block block = parser.parseProgram();
+                TypeChecker checker = new TypeChecker();
+                checker.check(block);
+                context.allocateSlots(checker.getSlotCount());
+                block.execute(context);
+                parser.parseEnd();
+            } else {
+                Builder.parseAndExecute(queue, context);
+            }
+        } catch (RuntimeException e) {
+            result = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        return output + " | " + result;
+    }
+
+    /* Output and errors must not depend on which front end runs the program */
+    @Test
+    public void behavesLikeCombinators() {
+        String[] samples = {
+                "var x : int := 4; for i in 1..x do print i; end for;",
+                "var i : int; for i in 1..3 do print i; end for; print i;",
+                "for i in 1..3 do print i; end for;",
+                "var i : int; for i in true..3 do print i; end for;",
+                "var i : int; for i in 1..\"a\" do print i; end for;",
+                "print 1; print 2 ) print 3;",
+                ") print 1;",
+                "",
+                "print 1 + ;",
+                "print (1 + 2;",
+                "var x : int := 1 + 2 + 3;",
+                "var x : int :: 1;",
+                "print !1;",
+                "print !true & false;",
+                "print 1 & 1;",
+                "print \"a\" - \"b\";",
+                "print 1 + \"a\";",
+                "var x : int; print x;",
+                "var x : int; x := true;",
+                "x := 1;",
+                "var x : int; var x : int;",
+                "assert (1);",
+                "assert (1 = 2);",
+                "var b : bool; read b;",
+                "print 1 / 0;",
+                "for i in 1..2 do print i end for;",
+                "var i : int; for i in 2147483646..2147483647 do print i; end for; print i;",
+        };
+        for (String sample : samples)
+            assertEquals(sample, run(sample, false), run(sample, true));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ResolverTest {
+    private TypeChecker checker;
+
+    private Block check(String program) {
+        Block block = new Parser(new TokenQueue(program)).parseProgram();
+        checker = new TypeChecker();
+        checker.check(block);
+        return block;
+    }
+
+    private static String run(String program) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new Executor(program).execute(new InputOutput(new PrintStream(output)));
+        return output.toString();
+    }
+
+    @Test
+    public void usesOfAVariableShareItsSlot() {
+        Block block = check("var a : int;\nvar b : int := 1;\na := b;\nread a;\nprint a;");
+        VarDecl a = (VarDecl) block.getStatements().get(0);
+        VarDecl b = (VarDecl) block.getStatements().get(1);
+        Assign assign = (Assign) block.getStatements().get(2);
+        Read read = (Read) block.getStatements().get(3);
+        VarRef printed = (VarRef) ((Print) block.getStatements().get(4)).getValue();
+
+        assertNotEquals(a.getSlot(), b.getSlot());
+        assertEquals(a.getSlot(), assign.getSlot());
+        assertEquals(b.getSlot(), ((VarRef) assign.getValue()).getSlot());
+        assertEquals(a.getSlot(), read.getSlot());
+        assertEquals(a.getSlot(), printed.getSlot());
+        assertEquals(2, checker.getSlotCount());
+    }
+
+    @Test
+    public void shadowingGetsASlotOfItsOwn() {
+        Block block = check("var x : int;\nvar i : int;\nfor i in 1..2 do var x : string; print x; end for;");
+        VarDecl outer = (VarDecl) block.getStatements().get(0);
+        For loop = (For) block.getStatements().get(2);
+        VarDecl inner = (VarDecl) loop.getBody().getStatements().get(0);
+        VarRef printed = (VarRef) ((Print) loop.getBody().getStatements().get(1)).getValue();
+
+        assertEquals(((VarDecl) block.getStatements().get(1)).getSlot(), loop.getSlot());
+        assertNotEquals(outer.getSlot(), inner.getSlot());
+        assertEquals(inner.getSlot(), printed.getSlot());
+        assertEquals(3, checker.getSlotCount());
+    }
+
+    /* a slot is free again after the scope of its variable ends */
+    @Test
+    public void siblingLoopsReuseSlots() {
+        Block block = check("var i : int;\n" +
+                "for i in 1..2 do var a : int; var b : int; end for;\n" +
+                "for i in 1..2 do var c : string; end for;\n" +
+                "var d : bool;");
+        VarDecl a = (VarDecl) ((For) block.getStatements().get(1)).getBody().getStatements().get(0);
+        VarDecl c = (VarDecl) ((For) block.getStatements().get(2)).getBody().getStatements().get(0);
+        VarDecl d = (VarDecl) block.getStatements().get(3);
+
+        assertEquals(a.getSlot(), c.getSlot());
+        assertEquals(a.getSlot(), d.getSlot());
+        assertEquals(3, checker.getSlotCount());
+    }
+
+    @Test
+    public void reusedSlotsKeepValuesApart() {
+        assertEquals("1a2a3true", run("var i : int;\n" +
+                "for i in 1..2 do var a : int := i; print a; var s : string := \"a\"; print s; end for;\n" +
+                "var b : bool := true;\nprint i;\nprint b;"));
+        assertEquals("5", run("var x : int := 5;\nvar i : int;\nfor i in 1..2 do var x : int := i; end for;\nprint x;"));
+    }
+}
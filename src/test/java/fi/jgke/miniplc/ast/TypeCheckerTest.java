@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.ast;
+
+import fi.jgke.miniplc.exception.OperationNotSupportedException;
+import fi.jgke.miniplc.exception.RuntimeException;
+import fi.jgke.miniplc.exception.TypeException;
+import fi.jgke.miniplc.exception.UndefinedVariableException;
+import fi.jgke.miniplc.exception.VariableAlreadyDefinedException;
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TypeCheckerTest {
+    private static Block check(String program) {
+        Block block = new Parser(new TokenQueue(program)).parseProgram();
+        new TypeChecker().check(block);
+        return block;
+    }
+
+    private static void assertRejected(String program, Class<? extends RuntimeException> error, String message) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            new Executor(program).execute(new InputOutput(new PrintStream(output)));
+            fail(program);
+        } catch (RuntimeException e) {
+            assertEquals(program, error, e.getClass());
+            assertEquals(program, message, e.getMessage());
+        }
+        /* nothing runs before the error */
+        assertEquals(program, "", output.toString());
+    }
+
+    @Test
+    public void annotatesExpressions() {
+        Block block = check("var x : int := 1;\n" +
+                "var s : string := \"a\" + \"b\";\n" +
+                "assert ((!(x < 2)) = (s = \"ab\"));\n" +
+                "read s;");
+        VarDecl x = (VarDecl) block.getStatements().get(0);
+        assertEquals(VariableType.INT, x.getValue().getType());
+        VarDecl s = (VarDecl) block.getStatements().get(1);
+        assertEquals(VariableType.STRING, s.getValue().getType());
+
+        Binary equals = (Binary) ((Assert) block.getStatements().get(2)).getCondition();
+        assertEquals(VariableType.BOOL, equals.getType());
+        Unary not = (Unary) equals.getLeft();
+        assertEquals(VariableType.BOOL, not.getType());
+        assertEquals(VariableType.INT, ((Binary) not.getOperand()).getLeft().getType());
+
+        assertEquals(VariableType.STRING, ((Read) block.getStatements().get(3)).getType());
+    }
+
+    @Test
+    public void reportsTypeErrorsBeforeExecution() {
+        assertRejected("print 1;\nvar a : int := true;", TypeException.class,
+                "Incompatible types near line 2: Expected INT, got BOOL");
+        assertRejected("var a : int;\nprint 1;\na := \"a\";", TypeException.class,
+                "Incompatible types near line 1: Expected INT, got STRING");
+        assertRejected("print 1;\nassert (1);", TypeException.class,
+                "Incompatible types near line 2: Expected BOOL, got INT");
+        assertRejected("var i : int;\nprint 1;\nfor i in 1..\n\"a\" do end for;", TypeException.class,
+                "Incompatible types near line 3: Expected INT, got STRING");
+        assertRejected("print 1;\nprint 1 + \"a\";", TypeException.class,
+                "Incompatible types near line 2: Expected INT, got STRING");
+        assertRejected("print 1;\nprint \"a\" - \"b\";", OperationNotSupportedException.class,
+                "Unsupported operation near line 2: Cannot use [MINUS=null]  with STRING");
+        assertRejected("print 1;\nprint !1;", OperationNotSupportedException.class,
+                "Unsupported operation near line 2: Cannot use NOT with non-boolean");
+    }
+
+    @Test
+    public void reportsNameErrorsBeforeExecution() {
+        assertRejected("print 1;\nx := 1;", UndefinedVariableException.class,
+                "Undefined variable near line 2: x");
+        assertRejected("print 1;\nfor i in 1..2 do end for;", UndefinedVariableException.class,
+                "Undefined variable near line 2: i");
+        assertRejected("var i : int;\nfor i in 1..2 do var x : int; end for;\nprint x;",
+                UndefinedVariableException.class, "Undefined variable near line 3: x");
+        assertRejected("var x : int;\nprint 1;\nvar x : string;", VariableAlreadyDefinedException.class,
+                "Variable x already defined near line 1, cannot redefine at line 3");
+    }
+
+    /* Code which never runs is checked too, and a loop variable is an int */
+    @Test
+    public void checksCodeWhichDoesNotRun() {
+        assertRejected("var i : int;\nfor i in 1..0 do print 1 + true; end for;", TypeException.class,
+                "Incompatible types near line 2: Expected INT, got BOOL");
+        assertRejected("var s : string;\nfor s in 1..0 do end for;", TypeException.class,
+                "Incompatible types near line 2: Expected INT, got STRING");
+    }
+
+    @Test
+    public void scopesFollowLoopBodies() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new Executor("var x : int := 1;\nvar i : int;\n" +
+                "for i in 1..3 do var x : string := \"x\"; print x; end for;\n" +
+                "print x;").execute(new InputOutput(new PrintStream(output)));
+        assertEquals("xxx1", output.toString());
+    }
+}
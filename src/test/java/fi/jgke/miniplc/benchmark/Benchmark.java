@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.jgke.miniplc.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Minimal measurement harness for the benchmarks in this package.
+ *
+ * Each benchmark is a plain main class, run with e.g.
+ * {@code gradle benchmark -Pbench=TokenizerBenchmark}. Allocation is
+ * measured with the HotSpot per-thread allocation counter.
+ */
+public class Benchmark {
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static class Result {
+        public final long nanosPerOperation;
+        public final long bytesPerOperation;
+
+        Result(long nanosPerOperation, long bytesPerOperation) {
+            this.nanosPerOperation = nanosPerOperation;
+            this.bytesPerOperation = bytesPerOperation;
+        }
+    }
+
+    public static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Run the operation until the JIT has settled, then average over the
+     * given number of measured runs.
+     */
+    public static Result measure(int warmup, int iterations, Runnable operation) {
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        bytes = allocatedBytes() - bytes;
+        return new Result(elapsed / iterations, bytes / iterations);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Roughly how many bytes of heap the result of the operation keeps alive,
+     * measured around full garbage collections.
+     */
+    public static long retainedBytes(Supplier<Object> operation) {
+        long before = usedHeap();
+        Object result = operation.get();
+        long after = usedHeap();
+        if (result.hashCode() == 42)
+            System.out.print("");
+        return after - before;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.Miniplc;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wall clock time of running a script in a new JVM, interpreted and
+ * compiled into a jar with {@code compile}, for a script which only prints
+ * (start up) and for nested loops (total run time).
+ *
+ * The interpreter is run from the class path of the benchmark, or with
+ * {@code java -jar} when the path of miniplc.jar is given after the size.
+ */
+public class CompiledJarBenchmark {
+    private static final int ROUNDS = 7;
+
+    /* the total stays below size * size, so it does not overflow */
+    private static String loops(int size) {
+        return "var total : int := 0;\n" +
+                "var i : int;\n" +
+                "var j : int;\n" +
+                "for i in 1.." + size + " do\n" +
+                "    for j in 1.." + size + " do\n" +
+                "        total := (total + (i * j)) / 2;\n" +
+                "        assert (!(total < 0));\n" +
+                "    end for;\n" +
+                "end for;\n" +
+                "print total;\n";
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> interpreter = args.length > 1
+                ? Arrays.asList(java, "-jar", args[1])
+                : Arrays.asList(java, "-cp", System.getProperty("java.class.path"), Miniplc.class.getName());
+
+        Path directory = Files.createTempDirectory("miniplc");
+        try {
+            run("start up", "print \"hello\";\n", directory, java, interpreter);
+            run("loops " + size + "x" + size, loops(size), directory, java, interpreter);
+        } finally {
+            for (File file : directory.toFile().listFiles())
+                Files.delete(file.toPath());
+            Files.delete(directory);
+        }
+    }
+
+    private static void run(String name, String script, Path directory, String java, List<String> interpreter)
+            throws Exception {
+        Path source = directory.resolve("script.mpl");
+        Path jar = directory.resolve("script.jar");
+        Files.write(source, script.getBytes("UTF-8"));
+        if (Miniplc.app(new String[]{"compile", source.toString(), jar.toString()}, System.out, System.err) != 0)
+            throw new IllegalStateException("Could not compile " + name);
+
+        List<String> interpreted = new ArrayList<>(interpreter);
+        interpreted.add(source.toString());
+        double interpreterMillis = median(interpreted);
+        double jarMillis = median(Arrays.asList(java, "-jar", jar.toString()));
+        System.out.printf("%-20s interpreter %.0f ms, jar %.0f ms (%.1fx)%n",
+                name + ":", interpreterMillis, jarMillis, interpreterMillis / jarMillis);
+    }
+
+    /* Median milliseconds of running the command, after one run to warm
+     * up the file system caches */
+    private static double median(List<String> command) throws IOException, InterruptedException {
+        List<Long> times = new ArrayList<>();
+        byte[] buffer = new byte[8192];
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            try (InputStream output = process.getInputStream()) {
+                while (output.read(buffer) >= 0) {
+                }
+            }
+            if (process.waitFor() != 0)
+                throw new IllegalStateException("Failed: " + command);
+            if (round > 0)
+                times.add(System.nanoTime() - start);
+        }
+        Collections.sort(times);
+        return times.get(times.size() / 2) / 1e6;
+    }
+}
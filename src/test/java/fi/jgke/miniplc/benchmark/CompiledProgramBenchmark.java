@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.Program;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Time and allocation per run of a small script which is run many times,
+ * lexing and parsing it on every run and compiling it once.
+ */
+public class CompiledProgramBenchmark {
+    private static final String SCRIPT = "var total : int := 0;\n" +
+            "var i : int;\n" +
+            "for i in 1..10 do\n" +
+            "    total := total + (i * i);\n" +
+            "end for;\n" +
+            "assert (total = 385);\n" +
+            "var text : string := \"total \";\n" +
+            "print text;\n" +
+            "print total;\n";
+
+    public static void main(String[] args) {
+        InputOutput io = new InputOutput(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        Benchmark.Result script = Benchmark.measure(20000, 20000, () -> new Executor(SCRIPT).execute(io));
+        Program program = Executor.compile(SCRIPT);
+        Benchmark.Result compiled = Benchmark.measure(20000, 20000, () -> program.run(io));
+
+        System.out.printf("execute script:  %d ns/run, %d bytes/run%n", script.nanosPerOperation, script.bytesPerOperation);
+        System.out.printf("run compiled:    %d ns/run, %d bytes/run%n", compiled.nanosPerOperation, compiled.bytesPerOperation);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.builder.Syntax;
+import fi.jgke.miniplc.tokenizer.TokenBuffer;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parsing throughput of N lexed scripts on N threads with the shared
+ * grammar, for each N up to the number of processors. Rules keep no state
+ * of a parse, so the throughput should scale like that of the tokenizer.
+ */
+public class ConcurrentParserBenchmark {
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int processors = Runtime.getRuntime().availableProcessors();
+        String script = Scripts.generate(statements);
+        System.out.printf("statements:        %d, %d processors%n", statements + 2, processors);
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < processors; threads *= 2)
+            threadCounts.add(threads);
+        threadCounts.add(processors);
+
+        double single = 0;
+        for (int threads : threadCounts) {
+            run(script, threads, ROUNDS);
+            double throughput = (double) (statements + 2) * ROUNDS * threads / (run(script, threads, ROUNDS) / 1e9);
+            if (threads == 1)
+                single = throughput;
+            System.out.printf("%2d threads:        %.2f Mstatements/s (%.2fx)%n", threads, throughput / 1e6, throughput / single);
+        }
+    }
+
+    /* Nanoseconds for every thread to parse its own tokens of the script
+     * the given number of times */
+    private static long run(String script, int threads, int rounds) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<TokenBuffer> copies = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+                copies.add(new Tokenizer().tokenizePacked(script));
+
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>();
+            for (TokenBuffer copy : copies) {
+                results.add(executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++)
+                        Syntax.program().consume(new TokenQueue(copy));
+                }));
+            }
+            for (Future<?> result : results)
+                result.get();
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lexing throughput of N scripts on N threads, for each N up to the number
+ * of processors. Tokenizers share no state, so the throughput should scale
+ * linearly until the processors or the memory bandwidth run out.
+ */
+public class ConcurrentTokenizerBenchmark {
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int processors = Runtime.getRuntime().availableProcessors();
+        String script = Scripts.generate(statements);
+        System.out.printf("source:            %d chars, %d processors%n", script.length(), processors);
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < processors; threads *= 2)
+            threadCounts.add(threads);
+        threadCounts.add(processors);
+
+        double single = 0;
+        for (int threads : threadCounts) {
+            run(script, threads, ROUNDS);
+            double throughput = (double) script.length() * ROUNDS * threads / (run(script, threads, ROUNDS) / 1e9);
+            if (threads == 1)
+                single = throughput;
+            System.out.printf("%2d threads:        %.1f Mchars/s (%.2fx)%n", threads, throughput / 1e6, throughput / single);
+        }
+    }
+
+    /* Nanoseconds for every thread to lex its own copy of the script the
+     * given number of times */
+    private static long run(String script, int threads, int rounds) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<String> copies = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+                copies.add(new String(script.toCharArray()));
+
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>();
+            for (String copy : copies) {
+                results.add(executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++)
+                        new Tokenizer().tokenize(copy);
+                }));
+            }
+            for (Future<?> result : results)
+                result.get();
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Parser;
+import fi.jgke.miniplc.ast.TypeChecker;
+import fi.jgke.miniplc.builder.Builder;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.tokenizer.TokenBuffer;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Time and allocation of parsing and executing a lexed script, per top
+ * level statement, with the rule combinators and with the syntax tree.
+ */
+public class ExecutionBenchmark {
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        TokenBuffer tokens = new Tokenizer().tokenizePacked(Scripts.generate(statements));
+        InputOutput io = new InputOutput(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        int count = statements + 2;
+
+        Benchmark.Result combinators = Benchmark.measure(20, 20, () ->
+                Builder.parseAndExecute(new TokenQueue(tokens), new Context(io)));
+        Benchmark.Result tree = Benchmark.measure(20, 20, () -> {
+            Context context = new Context(io);
+            Parser parser = new Parser(new TokenQueue(tokens));
+            Block program = parser.parseProgram();
+            TypeChecker checker = new TypeChecker();
+            checker.check(program);
+            context.allocateSlots(checker.getSlotCount());
+            program.execute(context);
+            parser.parseEnd();
+        });
+
+        System.out.printf("statements:    %d%n", count);
+        report("combinators:", combinators, count);
+        report("syntax tree:", tree, count);
+        System.out.printf("speedup:       %.1fx%n", (double) combinators.nanosPerOperation / tree.nanosPerOperation);
+    }
+
+    private static void report(String name, Benchmark.Result result, int count) {
+        System.out.printf("%-14s %.0f ns/statement, %.0f bytes/statement%n", name,
+                (double) result.nanosPerOperation / count, (double) result.bytesPerOperation / count);
+    }
+}
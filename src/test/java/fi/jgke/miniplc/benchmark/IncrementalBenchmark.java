@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.incremental.Document;
+
+/**
+ * Latency of a one character edit in the middle of a document against
+ * lexing and parsing the whole text again, for growing documents. The edit
+ * should take about as long whatever the size.
+ */
+public class IncrementalBenchmark {
+    public static void main(String[] args) {
+        for (int statements : new int[]{600, 6000, 60000}) {
+            String script = Scripts.generate(statements);
+            int lines = script.split("\n", -1).length;
+
+            Benchmark.Result full = Benchmark.measure(3, 5, () -> new Document(script));
+
+            Document document = new Document(script);
+            int offset = script.indexOf("total := total + (value", script.length() / 2) + 9;
+            Benchmark.Result edit = Benchmark.measure(20000, 20000, () -> {
+                document.edit(offset, 0, "1");
+                document.edit(offset, 1, "");
+            });
+
+            System.out.printf("%6d lines: full %8.2f ms, edit %6.2f us%n",
+                    lines, full.nanosPerOperation / 1e6, edit.nanosPerOperation / 2 / 1e3);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+/**
+ * Lexing throughput and allocation for sources made almost entirely of
+ * keywords, and of identifiers, many of which share a prefix or initial with
+ * a keyword.
+ */
+public class KeywordBenchmark {
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        report("keyword dense", Scripts.keywordDense(statements));
+        report("identifier dense", Scripts.identifierDense(statements));
+    }
+
+    private static void report(String name, String script) {
+        Benchmark.Result result = Benchmark.measure(10, 20, () -> new Tokenizer().tokenize(script));
+        double seconds = result.nanosPerOperation / 1e9;
+        System.out.printf("%s (%d chars)%n", name, script.length());
+        System.out.printf("  throughput:      %.1f Mchars/s%n", script.length() / seconds / 1e6);
+        System.out.printf("  allocated:       %.0f bytes per KB of source%n", result.bytesPerOperation / (script.length() / 1024.0));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.builder.Builder;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Engine;
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.Program;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Time and allocation per inner iteration of a compiled program which is
+ * all nested loops, variable accesses and arithmetic, which is where
+ * execution spends its time once parsing is out of the way. Each engine is
+ * measured, along with the grammar driven interpreter for reference.
+ */
+public class LoopBenchmark {
+    public static String script(int size) {
+        return "var total : int := 0;\n" +
+                "var i : int;\n" +
+                "var j : int;\n" +
+                "for i in 1.." + size + " do\n" +
+                "    for j in 1.." + size + " do\n" +
+                "        total := total + ((i * j) / 7);\n" +
+                "        assert (!(total < 0));\n" +
+                "    end for;\n" +
+                "end for;\n" +
+                "print total;\n";
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        InputOutput io = new InputOutput(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        String script = script(size);
+        long iterations = (long) size * size;
+        System.out.printf("iterations:    %d%n", iterations);
+
+        Benchmark.Result combinators = Benchmark.measure(3, 5, () ->
+                Builder.parseAndExecute(new TokenQueue(script), new Context(io)));
+        report("combinators", combinators, iterations);
+        for (Engine engine : Engine.values()) {
+            Program program = Executor.compile(script, engine);
+            Benchmark.Result result = Benchmark.measure(20, 30, () -> program.run(io));
+            report(engine.name().toLowerCase(), result, iterations);
+            System.out.printf("%-14s %.1fx%n", "", (double) combinators.nanosPerOperation / result.nanosPerOperation);
+        }
+    }
+
+    private static void report(String name, Benchmark.Result result, long iterations) {
+        System.out.printf("%-14s %.1f ns/iteration, %.1f bytes/iteration%n", name + ":",
+                (double) result.nanosPerOperation / iterations, (double) result.bytesPerOperation / iterations);
+    }
+}
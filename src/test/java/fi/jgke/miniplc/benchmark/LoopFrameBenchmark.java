@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.builder.Builder;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.Program;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Time and allocation per iteration of a single loop with an empty body, a
+ * body which only assigns, and a body which declares a variable, run by
+ * both interpreters. The grammar driven one pushes a frame per iteration,
+ * the syntax tree none.
+ */
+public class LoopFrameBenchmark {
+    private static final String[] BODIES = {
+            "",
+            "x := x + i;",
+            "var y : int := i; x := x + y;",
+    };
+
+    private static String script(long iterations, String body) {
+        return "var x : int := 0;\n" +
+                "var i : int;\n" +
+                "for i in 1.." + iterations + " do " + body + " end for;\n";
+    }
+
+    public static void main(String[] args) {
+        long iterations = args.length > 0 ? Long.parseLong(args[0]) : 10000000;
+        InputOutput io = new InputOutput(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+
+        System.out.printf("iterations:    %d%n", iterations);
+        for (String body : BODIES) {
+            String script = script(iterations, body);
+            Benchmark.Result combinators = Benchmark.measure(1, 3, () ->
+                    Builder.parseAndExecute(new TokenQueue(script), new Context(io)));
+            Program program = Executor.compile(script);
+            Benchmark.Result tree = Benchmark.measure(3, 5, () -> program.run(io));
+
+            System.out.printf("body \"%s\"%n", body);
+            report("  combinators:", combinators, iterations);
+            report("  syntax tree:", tree, iterations);
+        }
+    }
+
+    private static void report(String name, Benchmark.Result result, long iterations) {
+        System.out.printf("%-15s %.1f ns/iteration, %.1f bytes/iteration%n", name,
+                (double) result.nanosPerOperation / iterations, (double) result.bytesPerOperation / iterations);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Time to lex one large script sequentially, and in chunks on pools of one
+ * thread up to one thread per processor.
+ */
+public class ParallelTokenizerBenchmark {
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int processors = Runtime.getRuntime().availableProcessors();
+        String script = Scripts.generate(statements);
+        System.out.printf("source:            %d chars, %d processors%n", script.length(), processors);
+
+        Benchmark.Result sequential = Benchmark.measure(5, 10, () -> new Tokenizer().tokenizePacked(script));
+        System.out.printf("sequential:        %.2f ms%n", sequential.nanosPerOperation / 1e6);
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < processors; threads *= 2)
+            threadCounts.add(threads);
+        threadCounts.add(processors);
+
+        for (int threads : threadCounts) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Benchmark.Result result = Benchmark.measure(5, 10, () -> new Tokenizer().tokenizePacked(script, pool));
+                System.out.printf("%2d threads:        %.2f ms (%.2fx)%n", threads, result.nanosPerOperation / 1e6,
+                        (double) sequential.nanosPerOperation / result.nanosPerOperation);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
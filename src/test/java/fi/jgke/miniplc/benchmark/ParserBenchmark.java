@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.builder.Syntax;
+import fi.jgke.miniplc.tokenizer.TokenBuffer;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+/**
+ * Time and allocation of parsing a lexed script, per top level statement.
+ * Lexing is done once up front, so only the parser and the tokens it
+ * consumes are measured.
+ */
+public class ParserBenchmark {
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        TokenBuffer tokens = new Tokenizer().tokenizePacked(Scripts.generate(statements));
+        int count = statements + 2;
+
+        Benchmark.Result result = Benchmark.measure(20, 20, () ->
+                Syntax.program().consume(new TokenQueue(tokens)));
+        System.out.printf("statements:    %d%n", count);
+        System.out.printf("parse:         %.0f ns/statement%n", (double) result.nanosPerOperation / count);
+        System.out.printf("allocated:     %.0f bytes/statement%n", (double) result.bytesPerOperation / count);
+    }
+}
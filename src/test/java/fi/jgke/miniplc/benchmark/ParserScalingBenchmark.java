@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.builder.Syntax;
+import fi.jgke.miniplc.tokenizer.TokenBuffer;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+import java.util.function.IntFunction;
+
+/**
+ * Parse time per token of deeply nested expressions and of a loop with a
+ * long body, as they grow. Time per token should stay flat. Both nest the
+ * parser deeply, so this runs on a thread with a large stack.
+ */
+public class ParserScalingBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        Thread thread = new Thread(null, ParserScalingBenchmark::run, "parser", 1 << 29);
+        thread.start();
+        thread.join();
+    }
+
+    private static String nested(int depth) {
+        StringBuilder builder = new StringBuilder("print ");
+        for (int i = 0; i < depth; i++)
+            builder.append("(1 + ");
+        builder.append("1");
+        for (int i = 0; i < depth; i++)
+            builder.append(")");
+        return builder.append(";\n").toString();
+    }
+
+    private static String longLoop(int statements) {
+        StringBuilder builder = new StringBuilder("var x : int := 0;\nfor i in 1..2 do\n");
+        for (int i = 0; i < statements; i++)
+            builder.append("    x := (x + i) * 2;\n");
+        return builder.append("end for;\n").toString();
+    }
+
+    private static void run() {
+        report("nested parentheses", ParserScalingBenchmark::nested);
+        report("long loop body", ParserScalingBenchmark::longLoop);
+    }
+
+    private static void report(String name, IntFunction<String> generator) {
+        System.out.println(name + ":");
+        for (int size = 500; size <= 8000; size *= 2) {
+            TokenBuffer tokens = new Tokenizer().tokenizePacked(generator.apply(size));
+            Benchmark.Result result = Benchmark.measure(30, 30, () ->
+                    Syntax.program().consume(new TokenQueue(tokens)));
+            System.out.printf("%8d: %7.1f ns/token%n", size, (double) result.nanosPerOperation / tokens.size());
+        }
+    }
+}
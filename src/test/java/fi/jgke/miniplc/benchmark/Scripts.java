@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.jgke.miniplc.benchmark;
+
+/**
+ * Generators for large machine-written looking MiniPL programs.
+ */
+public class Scripts {
+
+    /* A mix of declarations, arithmetic, loops, strings and comments */
+    public static String generate(int statements) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("var total : int := 0;\n");
+        builder.append("var i : int;\n");
+        for (int n = 0; n < statements; n++) {
+            switch (n % 6) {
+                case 0:
+                    builder.append("var value").append(n).append(" : int := ").append(n).append(" * 3;\n");
+                    break;
+                case 1:
+                    builder.append("total := total + (value").append(n - 1).append(" / 2);\n");
+                    break;
+                case 2:
+                    builder.append("/* block ").append(n).append(" */\n");
+                    builder.append("for i in 0..").append(n % 10).append(" do\n");
+                    builder.append("    total := total - i;\n");
+                    builder.append("end for;\n");
+                    break;
+                case 3:
+                    builder.append("var text").append(n).append(" : string := \"line ").append(n).append("\\n\";\n");
+                    break;
+                case 4:
+                    builder.append("// check the running total\n");
+                    builder.append("assert (!(total < (0 - 1000000000)));\n");
+                    break;
+                default:
+                    builder.append("var flag").append(n).append(" : bool := total = ").append(n).append(";\n");
+                    break;
+            }
+        }
+        return builder.toString();
+    }
+
+    /* Almost nothing but reserved words and punctuation */
+    public static String keywordDense(int statements) {
+        StringBuilder builder = new StringBuilder();
+        for (int n = 0; n < statements; n++) {
+            builder.append("var x : int; var y : string; var z : bool;\n");
+            builder.append("for i in 0..1 do read x; print y; assert (true & !false); end for;\n");
+        }
+        return builder.toString();
+    }
+
+    /* Long identifiers, mostly reused, with a fresh one every few lines */
+    public static String identifierDense(int statements) {
+        StringBuilder builder = new StringBuilder();
+        for (int n = 0; n < statements; n++) {
+            builder.append("accumulator := accumulator + counter").append(n % 64).append(";\n");
+            builder.append("intermediate := previousValue * accumulator;\n");
+            if (n % 8 == 0)
+                builder.append("uniqueName").append(n).append(" := forward + reader;\n");
+        }
+        return builder.toString();
+    }
+}
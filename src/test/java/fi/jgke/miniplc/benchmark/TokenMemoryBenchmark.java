@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+/**
+ * Heap kept alive by the tokens of a large script, as a queue of tokens and
+ * as a packed buffer, and the time to lex into each.
+ */
+public class TokenMemoryBenchmark {
+    public static void main(String[] args) {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        String script = Scripts.generate(statements);
+        int tokens = new Tokenizer().tokenizePacked(script).size();
+        System.out.printf("source:            %d chars, %d tokens%n", script.length(), tokens);
+
+        report("token queue", tokens, Benchmark.retainedBytes(() -> new Tokenizer().tokenize(script)),
+                Benchmark.measure(5, 10, () -> new Tokenizer().tokenize(script)));
+        report("token buffer", tokens, Benchmark.retainedBytes(() -> new Tokenizer().tokenizePacked(script)),
+                Benchmark.measure(5, 10, () -> new Tokenizer().tokenizePacked(script)));
+    }
+
+    private static void report(String name, int tokens, long retained, Benchmark.Result result) {
+        System.out.printf("%s%n", name);
+        System.out.printf("  retained:        %.1f bytes per token%n", (double) retained / tokens);
+        System.out.printf("  time:            %.2f ms%n", result.nanosPerOperation / 1e6);
+        System.out.printf("  allocated:       %.1f bytes per token%n", (double) result.bytesPerOperation / tokens);
+    }
+}
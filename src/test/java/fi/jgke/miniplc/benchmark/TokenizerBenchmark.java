@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package fi.jgke.miniplc.benchmark;
+
+import fi.jgke.miniplc.tokenizer.TokenValue;
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Lexing throughput in characters per second, and bytes allocated per
+ * kilobyte of source, for a string and for a memory mapped file.
+ */
+public class TokenizerBenchmark {
+    public static void main(String[] args) throws IOException {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        String script = Scripts.generate(statements);
+        System.out.printf("source:            %d chars%n", script.length());
+
+        report("string", script.length(), Benchmark.measure(10, 20, () -> new Tokenizer().tokenize(script)));
+
+        Path path = Files.createTempFile(null, ".mpl");
+        try {
+            Files.write(path, script.getBytes(StandardCharsets.UTF_8));
+            report("mapped file", script.length(), Benchmark.measure(10, 20, () -> lexFile(path)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void lexFile(Path path) {
+        try (FileChannel channel = FileChannel.open(path)) {
+            Tokenizer tokenizer = new Tokenizer(channel);
+            while (tokenizer.nextToken().getValue() != TokenValue.EOS) {
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void report(String name, int length, Benchmark.Result result) {
+        double seconds = result.nanosPerOperation / 1e9;
+        double kilobytes = length / 1024.0;
+        System.out.printf("%s%n", name);
+        System.out.printf("  time:            %.2f ms%n", seconds * 1000);
+        System.out.printf("  throughput:      %.1f Mchars/s%n", length / seconds / 1e6);
+        System.out.printf("  allocated:       %.0f bytes per KB of source%n", result.bytesPerOperation / kilobytes);
+    }
+}
@@ -34,6 +34,7 @@ import static fi.jgke.miniplc.builder.BaseRules.lazy;
 import static fi.jgke.miniplc.tokenizer.TokenValue.SEMICOLON;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class BuilderTest {
@@ -83,11 +84,24 @@ public class BuilderTest {
 
     @Test
     public void lazyMatches() throws Exception {
-        assertTrue(lazy(BaseRules::empty).matches());
+        assertTrue(lazy(BaseRules::empty).matches(TokenQueue.of()));
+    }
+
+    @Test
+    public void lazyIsBuiltOnce() throws Exception {
+        int[] built = {0};
+        Rule rule = lazy(() -> {
+            built[0]++;
+            return BaseRules.empty();
+        });
+        rule.matches(TokenQueue.of());
+        rule.consume(TokenQueue.of());
+        assertEquals(1, built[0]);
+        assertSame(Syntax.statement(), Syntax.statement());
     }
 
     @Test(expected = RuleNotMatchedException.class)
     public void anyHasSafeguardForNoneMatched() throws Exception {
-        any(Terminal.And).with(TokenQueue.of(new Token(SEMICOLON))).consume();
+        any(Terminal.And).consume(TokenQueue.of(new Token(SEMICOLON)));
     }
 }
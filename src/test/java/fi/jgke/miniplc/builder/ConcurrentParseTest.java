@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.builder;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static fi.jgke.miniplc.builder.BaseRules.*;
+import static fi.jgke.miniplc.builder.Terminal.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Many threads parsing with the shared grammar at once must each get the
+ * same result as when parsing alone.
+ */
+public class ConcurrentParseTest {
+    private static final int THREADS = 8;
+
+    private static String program(int seed) {
+        StringBuilder builder = new StringBuilder("var total : int := ").append(seed).append(";\n");
+        builder.append("var text : string := \"").append(seed).append("\";\n");
+        builder.append("var i : int;\n");
+        for (int i = 0; i < 200; i++) {
+            builder.append("total := total + (").append(i % 7).append(" * ").append(seed % 5).append(");\n");
+            if (i % 20 == 0)
+                builder.append("for i in 1..").append(seed % 4).append(" do text := text + \"-\"; end for;\n");
+        }
+        builder.append("print total; print text;\n");
+        return builder.toString();
+    }
+
+    private static String run(String program) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Builder.parseAndExecute(new TokenQueue(program), new Context(new InputOutput(new PrintStream(output))));
+        return output.toString();
+    }
+
+    @Test
+    public void parsesConcurrently() throws Exception {
+        List<String> programs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int seed = 0; seed < 64; seed++) {
+            programs.add(program(seed));
+            expected.add(run(programs.get(seed)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 10; round++) {
+                List<Future<String>> results = new ArrayList<>();
+                for (String program : programs)
+                    results.add(executor.submit(() -> run(program)));
+                for (int i = 0; i < programs.size(); i++)
+                    assertEquals(expected.get(i), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /* A grammar which is first used by several threads at once is analysed
+     * and built once, and parses the same on all of them */
+    @Test
+    public void firstUseIsThreadSafe() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            Rule[] self = new Rule[1];
+            self[0] = lazy(() -> any(all(OpenBrace, self[0], CloseBrace), all(Identifier, Semicolon)));
+            Rule grammar = lazy(() -> all(self[0], Eos));
+
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<Integer>> results = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    int depth = i;
+                    Callable<Integer> parse = () -> {
+                        StringBuilder input = new StringBuilder();
+                        for (int j = 0; j < depth; j++)
+                            input.append('(');
+                        input.append("x;");
+                        for (int j = 0; j < depth; j++)
+                            input.append(')');
+                        start.await();
+                        return grammar.consume(new TokenQueue(input.toString())).getList().size();
+                    };
+                    results.add(executor.submit(parse));
+                }
+                start.countDown();
+                for (Future<Integer> result : results)
+                    assertEquals(2, (int) result.get());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.builder;
+
+import fi.jgke.miniplc.tokenizer.TokenValue;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import static fi.jgke.miniplc.builder.BaseRules.*;
+import static fi.jgke.miniplc.builder.Terminal.*;
+import static org.junit.Assert.*;
+
+public class GrammarTest {
+    @Test
+    public void syntaxIsLL1() {
+        Grammar grammar = new Grammar(Syntax.program());
+        assertEquals(Collections.emptyList(), grammar.getConflicts());
+    }
+
+    @Test
+    public void firstAndFollowSets() {
+        Grammar grammar = new Grammar(Syntax.program());
+        assertEquals(EnumSet.of(TokenValue.VAR, TokenValue.IDENTIFIER, TokenValue.PRINT, TokenValue.READ,
+                TokenValue.ASSERT, TokenValue.FOR), Syntax.statement().getFirst());
+        assertTrue(Syntax.statements().isNullable());
+        assertFalse(Syntax.expression().isNullable());
+        assertEquals(EnumSet.of(TokenValue.SEMICOLON, TokenValue.CLOSE_BRACE, TokenValue.RANGE, TokenValue.DO),
+                grammar.getFollow(Syntax.expression()));
+        assertEquals(EnumSet.of(TokenValue.END, TokenValue.EOS), grammar.getFollow(Syntax.statements()));
+    }
+
+    @Test
+    public void conflictsAreFound() {
+        Rule ambiguous = any(all(Var, Identifier), all(Var, Colon));
+        assertEquals(1, new Grammar(ambiguous).getConflicts().size());
+
+        Rule optional = any(Colon, empty());
+        Rule followed = all(optional, Colon);
+        assertEquals(1, new Grammar(followed).getConflicts().size());
+    }
+}
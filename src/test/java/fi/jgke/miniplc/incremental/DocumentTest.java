@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.incremental;
+
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.tokenizer.Token;
+import fi.jgke.miniplc.tokenizer.TokenValue;
+import fi.jgke.miniplc.tokenizer.Tokenizer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DocumentTest {
+    private static final String[] statements = {
+            "var x : int := 1;\n", "var y : string := \"a\";\n", "print x;\n", "print y;\n",
+            "x := x + 2;\n", "y := y + \"b\\\nc\";\n", "assert(x < 10);\n", "print \"two\nlines\";\n",
+            "for i in 1..3 do\n    print i;\n    print x;\nend for;\n", "// comment\n", "/* multiline\ncomment */\n",
+            "print 1; print 2;\n", "\n", "print (x * 3) / 2; // trailing\n"
+    };
+
+    /* Edits, some of which only make sense next to others */
+    private static final String[] fragments = {
+            "x", "y", "1", "7", ";", ":", "=", "+", "(", ")", " ", "\n", "\"", "\\", "/*", "*/", "//", "/",
+            "print x;", "for", "end", "end for;", "do", "var z : bool;", "..", "_"
+    };
+
+    private static String generate(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(20);
+        for (int i = 0; i < length; i++)
+            builder.append(statements[random.nextInt(statements.length)]);
+        return builder.toString();
+    }
+
+    private static String run(String text, Document document) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        InputOutput io = new InputOutput(new PrintStream(output));
+        String result;
+        try {
+            if (document == null)
+                new Executor(text).execute(io);
+            else
+                document.execute(new Context(io));
+            result = "ok";
+        } catch (RuntimeException e) {
+            result = e.getClass().getName() + ": " + e.getMessage();
+        }
+        return output + "\n" + result;
+    }
+
+    private static void assertSameTokens(String text, Document document) {
+        Queue<Token> expected;
+        try {
+            expected = new Tokenizer().tokenize(text);
+        } catch (RuntimeException e) {
+            return;
+        }
+        for (Statement statement : document.getStatements()) {
+            for (Token token : statement.getTokens()) {
+                Token other = expected.remove();
+                assertEquals(text, other.getValue(), token.getValue());
+                assertEquals(text, other.getContent(), token.getContent());
+                assertEquals(text, other.getLineNumber(), token.getLineNumber());
+                assertEquals(text, other.getColumn(), token.getColumn());
+            }
+        }
+        if (!expected.isEmpty())
+            assertEquals(text, TokenValue.EOS, expected.remove().getValue());
+        assertTrue(text, expected.isEmpty());
+    }
+
+    @Test
+    public void testEditsMatchFullPipeline() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            String text = generate(random);
+            Document document = new Document(text);
+            for (int j = 0; j < 20; j++) {
+                int offset = random.nextInt(text.length() + 1);
+                int removed = random.nextInt(4) == 0 ? random.nextInt(Math.min(8, text.length() - offset) + 1) : 0;
+                String inserted = random.nextInt(3) == 0 ? "" : fragments[random.nextInt(fragments.length)];
+                text = text.substring(0, offset) + inserted + text.substring(offset + removed);
+                document.edit(offset, removed, inserted);
+
+                assertEquals(text, document.getText());
+                assertSameTokens(text, document);
+                assertEquals(text, run(text, null), run(text, document));
+            }
+        }
+    }
+
+    @Test
+    public void testUnchangedStatementsAreReused() {
+        StringBuilder builder = new StringBuilder("var x : int := 0;\n");
+        for (int i = 0; i < 1000; i++)
+            builder.append("x := x + ").append(i).append(";\n");
+        Document document = new Document(builder.toString());
+        List<Statement> before = document.getStatements();
+
+        int offset = document.getText().indexOf("x + 500;");
+        EditResult result = document.edit(offset + 2, 1, "-");
+        assertEquals(501, result.getIndex());
+        assertEquals(1, result.getRemoved().size());
+        assertSame(before.get(501), result.getRemoved().get(0));
+        assertEquals("x := x - 500;", result.getInserted().get(0).getText());
+        assertTrue(result.getRelexedLength() < 100);
+
+        List<Statement> after = document.getStatements();
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < after.size(); i++) {
+            if (i != 501)
+                assertSame(before.get(i), after.get(i));
+        }
+
+        result = document.edit(offset - 5, 0, "\n\n");
+        assertEquals(0, result.getRemoved().size() + result.getInserted().size());
+        assertEquals(504, document.getStatement(501).getLineNumber());
+        assertEquals(1003, document.getStatement(1000).getTokens().get(0).getLineNumber());
+        assertEquals(1, document.getStatement(1000).getTokens().get(0).getColumn());
+    }
+
+    @Test
+    public void testCommentSpansStatements() {
+        Document document = new Document("print 1;\nprint 2;\nprint 3;\nprint 4;\n");
+        EditResult result = document.edit(9, 0, "/*");
+        assertEquals(1, result.getIndex());
+        assertEquals(3, result.getRemoved().size());
+        assertEquals(1, result.getInserted().size());
+        assertFalse(document.getStatement(1).isValid());
+
+        result = document.edit(document.getText().indexOf("print 3"), 0, "*/");
+        assertEquals(1, result.getIndex());
+        assertEquals(1, result.getRemoved().size());
+        assertEquals(2, result.getInserted().size());
+        assertEquals("print 3;", document.getStatement(1).getText());
+        assertEquals("134\n", run(document.getText(), document).replace("ok", ""));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.interpreter;
+
+import fi.jgke.miniplc.exception.AssertionFailureException;
+import fi.jgke.miniplc.exception.UnexpectedTokenException;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ProgramTest {
+    private static final String SCRIPT = "var total : int := 0;\n" +
+            "var i : int;\n" +
+            "for i in 1..100 do\n" +
+            "    var square : int := i * i;\n" +
+            "    total := total + square;\n" +
+            "end for;\n" +
+            "print total;\n";
+
+    private static String run(Program program) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        program.run(new InputOutput(new PrintStream(output)));
+        return output.toString();
+    }
+
+    @Test
+    public void runsManyTimes() {
+        Program program = Executor.compile(SCRIPT);
+        for (int i = 0; i < 10; i++)
+            assertEquals("338350", run(program));
+    }
+
+    @Test
+    public void runsConcurrently() throws Exception {
+        Program program = Executor.compile(SCRIPT);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++)
+                results.add(executor.submit(() -> run(program)));
+            for (Future<String> result : results)
+                assertEquals("338350", result.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void runtimeErrorsDoNotAffectLaterRuns() {
+        Program program = Executor.compile("var x : int := 1; print x; assert (false);");
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try {
+                program.run(new InputOutput(new PrintStream(output)));
+                fail();
+            } catch (AssertionFailureException expected) {
+                assertEquals("1", output.toString());
+            }
+        }
+    }
+
+    /* Trailing tokens are a syntax error when compiling, before anything
+     * has been run */
+    @Test(expected = UnexpectedTokenException.class)
+    public void checksEndOfInput() {
+        Executor.compile("print 1; ) print 2;");
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.jvm;
+
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Parser;
+import fi.jgke.miniplc.ast.TypeChecker;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ClassCompilerTest {
+    private static Block check(String program, TypeChecker checker) {
+        Block block = new Parser(new TokenQueue(program)).parseProgram();
+        checker.check(block);
+        return block;
+    }
+
+    @Test
+    public void hugeProgramIsExecutedAsATree() {
+        StringBuilder program = new StringBuilder();
+        for (int i = 0; i < ClassCompiler.HUGE_METHOD_LIMIT; i++)
+            program.append("print ").append(i).append(";\n");
+        TypeChecker checker = new TypeChecker();
+        Block block = check(program.toString(), checker);
+        assertSame(block, ClassCompiler.compile(block, checker.getSlotCount()));
+
+        checker = new TypeChecker();
+        block = check("print 1;", checker);
+        assertNotSame(block, ClassCompiler.compile(block, checker.getSlotCount()));
+    }
+}
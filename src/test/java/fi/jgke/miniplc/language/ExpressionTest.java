@@ -18,6 +18,7 @@ package fi.jgke.miniplc.language;
 import fi.jgke.miniplc.builder.Syntax;
 import fi.jgke.miniplc.exception.RuntimeException;
 import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
 import fi.jgke.miniplc.interpreter.InputOutput;
 import fi.jgke.miniplc.interpreter.Variable;
 import fi.jgke.miniplc.interpreter.VariableType;
@@ -34,13 +35,12 @@ public class ExpressionTest {
 
     private void testWith(VariableType variableType, Object value, Token... tokens)
             throws RuntimeException {
-        Context context = new Context(InputOutput.getInstance());
+        FrameStack frames = new FrameStack(new Context(InputOutput.getInstance()));
         ConsumedRule consume = Syntax
                 .expression()
-                .with(TokenQueue.of(tokens))
-                .consume();
+                .consume(TokenQueue.of(tokens));
 
-        Variable var = consume.getVariable(context);
+        Variable var = consume.getVariable(frames);
 
         assertEquals(var.getType(), variableType);
         assertEquals(var.getValue(), value);
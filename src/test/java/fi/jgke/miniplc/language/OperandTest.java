@@ -18,6 +18,7 @@ package fi.jgke.miniplc.language;
 import fi.jgke.miniplc.builder.Syntax;
 import fi.jgke.miniplc.exception.RuntimeException;
 import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
 import fi.jgke.miniplc.interpreter.InputOutput;
 import fi.jgke.miniplc.interpreter.Variable;
 import fi.jgke.miniplc.interpreter.VariableType;
@@ -31,14 +32,13 @@ import static org.junit.Assert.*;
 
 public class OperandTest {
 
-    private void testWith(Context context, VariableType variableType, Object value, Token... tokens)
+    private void testWith(FrameStack frames, VariableType variableType, Object value, Token... tokens)
             throws RuntimeException {
         ConsumedRule consume = Syntax
                 .operand()
-                .with(TokenQueue.of(tokens))
-                .consume();
+                .consume(TokenQueue.of(tokens));
 
-        Variable var = consume.getVariable(context);
+        Variable var = consume.getVariable(frames);
 
         assertEquals(var.getType(), variableType);
         assertEquals(var.getValue(), value);
@@ -46,8 +46,8 @@ public class OperandTest {
 
     private void testWith(TokenValue type, VariableType variableType, Object value)
             throws RuntimeException {
-        Context context = new Context(InputOutput.getInstance());
-        testWith(context, variableType, value, new Token(type, value));
+        FrameStack frames = new FrameStack(new Context(InputOutput.getInstance()));
+        testWith(frames, variableType, value, new Token(type, value));
     }
 
     @Test
@@ -67,9 +67,9 @@ public class OperandTest {
 
     @Test
     public void parseIdentifier() throws RuntimeException {
-        Context context = new Context(InputOutput.getInstance());
-        context.addVariable(new Variable("bar", 1, VariableType.STRING, "foo"));
-        testWith(context, VariableType.STRING, "foo", new Token(TokenValue.IDENTIFIER, "bar"));
+        FrameStack frames = new FrameStack(new Context(InputOutput.getInstance()));
+        frames.addVariable(new Variable("bar", 1, VariableType.STRING, "foo"));
+        testWith(frames, VariableType.STRING, "foo", new Token(TokenValue.IDENTIFIER, "bar"));
     }
 
     @Test
@@ -77,9 +77,9 @@ public class OperandTest {
         Token left = new Token(TokenValue.OPEN_BRACE);
         Token middle = new Token(TokenValue.INT_CONST, 5);
         Token right = new Token(TokenValue.CLOSE_BRACE);
-        Context context = new Context(InputOutput.getInstance());
-        context.addVariable(new Variable("bar", 1, VariableType.STRING, "foo"));
-        testWith(context, VariableType.INT, 5, left, middle, right);
+        FrameStack frames = new FrameStack(new Context(InputOutput.getInstance()));
+        frames.addVariable(new Variable("bar", 1, VariableType.STRING, "foo"));
+        testWith(frames, VariableType.INT, 5, left, middle, right);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.misc;
+
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.Program;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integers and booleans are evaluated and stored unboxed, so a loop whose
+ * body only computes with them allocates nothing per iteration. Measured
+ * with the HotSpot per-thread allocation counter.
+ */
+public class AllocationTest {
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static String program(int size) {
+        return "var total : int := 0;\n" +
+                "var i : int;\n" +
+                "var j : int;\n" +
+                "for i in 1.." + size + " do\n" +
+                "    for j in 1.." + size + " do\n" +
+                "        var even : bool := ((j / 2) * 2) = j;\n" +
+                "        total := total + ((i * j) / 7);\n" +
+                "        assert ((!(total < 0)) = (even = even));\n" +
+                "    end for;\n" +
+                "end for;\n" +
+                "print total;\n";
+    }
+
+    private static long allocatedBytes(Program program) {
+        InputOutput io = new InputOutput(new PrintStream(new ByteArrayOutputStream()));
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        program.run(io);
+        return threads.getThreadAllocatedBytes(id) - before;
+    }
+
+    @Test
+    public void integerLoopsDoNotAllocatePerIteration() {
+        Program small = Executor.compile(program(10));
+        Program large = Executor.compile(program(300));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        large.run(new InputOutput(new PrintStream(output)));
+        assertEquals("291184218", output.toString());
+
+        /* once warmed up, a run only allocates what does not depend on the
+         * number of iterations, such as its context and output */
+        for (int i = 0; i < 5; i++) {
+            allocatedBytes(small);
+            allocatedBytes(large);
+        }
+        long difference = allocatedBytes(large) - allocatedBytes(small);
+        assertTrue("allocated " + difference + " more bytes for 89900 more iterations", difference < 1024);
+    }
+}
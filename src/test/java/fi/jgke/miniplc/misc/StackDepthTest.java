@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.misc;
+
+import fi.jgke.miniplc.builder.Builder;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Statement lists are parsed and executed in a loop, so a program with a
+ * million top level statements runs on a small fixed stack, the same as
+ * with -Xss512k.
+ */
+public class StackDepthTest {
+    private static final long STACK_SIZE = 512 * 1024;
+    private static final int STATEMENTS = 1000000;
+
+    private static String program() {
+        StringBuilder builder = new StringBuilder("var x : int := 0;\n");
+        for (int i = 0; i < STATEMENTS; i++)
+            builder.append(i % 2 == 0 ? "x := x + 1;\n" : "assert (0 < x);\n");
+        builder.append("print x;\n");
+        return builder.toString();
+    }
+
+    private static void runOnSmallStack(Runnable runnable) throws InterruptedException {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        }, "small stack", STACK_SIZE);
+        thread.start();
+        thread.join();
+        if (error.get() != null)
+            throw new AssertionError(error.get());
+    }
+
+    @Test
+    public void millionStatementsWithSyntaxTree() throws InterruptedException {
+        String program = program();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        runOnSmallStack(() -> new Executor(program).execute(new InputOutput(new PrintStream(output))));
+        assertEquals(String.valueOf(STATEMENTS / 2), output.toString());
+    }
+
+    @Test
+    public void millionStatementsWithCombinators() throws InterruptedException {
+        String program = program();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        runOnSmallStack(() -> Builder.parseAndExecute(new TokenQueue(program),
+                new Context(new InputOutput(new PrintStream(output)))));
+        assertEquals(String.valueOf(STATEMENTS / 2), output.toString());
+    }
+}
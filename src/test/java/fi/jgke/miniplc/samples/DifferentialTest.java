@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.samples;
+
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Parser;
+import fi.jgke.miniplc.ast.TypeChecker;
+import fi.jgke.miniplc.exception.RuntimeException;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Engine;
+import fi.jgke.miniplc.interpreter.Executable;
+import fi.jgke.miniplc.interpreter.Executor;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.interpreter.Program;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Programs which every engine must run like the syntax tree does: printing
+ * the same, and failing with the same error after the same output. Other
+ * ways of executing a tree, such as the loops of a tiered program compiled
+ * at once, are checked against the same programs.
+ */
+@RunWith(Parameterized.class)
+public class DifferentialTest {
+    private final Engine engine;
+
+    public DifferentialTest(Engine engine) {
+        this.engine = engine;
+    }
+
+    @Parameters(name = "{0}")
+    public static Engine[] engines() {
+        return Engine.values();
+    }
+
+    public static List<String> programs() {
+        List<String> programs = new ArrayList<>(Arrays.asList(
+                /* operators */
+                "print 1 + 2; print 7 - 9; print 6 * 7; print 7 / 2; print 1 < 2; print 2 < 1;",
+                "print -2147483647 < 2147483647; print 2147483647 < -2147483647; print 2147483647 + 1;",
+                "print 3 = 3; print 3 = 4; print \"a\" + \"b\"; print \"a\" = \"a\"; print \"a\" = \"b\";",
+                "print true & false; print true & true; print !true; print !(1 = 2); print true = false;",
+                "var s : string := \"x\"; var t : string := s + (s + \"y\"); print t; print t = \"xxy\";",
+                "var x : int := 9; print x - (1 + 1); print x / (1 + 2); print x < (1 + 9);",
+                "var b : bool := true; print b = (1 < 2); print b & (2 < 1);",
+
+                /* loops */
+                "var i : int; var j : int; var n : int := 0;\n" +
+                        "for i in 1..4 do for j in i..4 do n := n + (i * j); print j; end for; end for;\n" +
+                        "print n; print i; print j;",
+                "var i : int; for i in 5..1 do print i; end for; print i;",
+                "var i : int; for i in 2147483647..2147483647 do print i; end for; print i;",
+                "var i : int; for i in 2147483646..2147483647 do print i; end for; print i;",
+                /* assigning to the loop variable does not change the iterations */
+                "var i : int; for i in 1..6 do print i; i := 10; end for; print i;",
+                "var i : int := 7; for i in 1..3 do print i; end for; print i;",
+                "var i : int; var s : string := \"\"; var b : bool := true;\n" +
+                        "for i in 1..5 do s := s + \"a\"; b := !b; print s; end for; print s; print b;",
+                "var i : int; var j : int;\n" +
+                        "for i in 1..5 do var x : string := \"a\"; print x; end for;\n" +
+                        "for j in 1..5 do var y : int; y := j; print y; end for;",
+                "var i : int; var j : int;\n" +
+                        "for i in 1..2 do var x : string := \"a\"; print x; end for;\n" +
+                        "for j in 1..2 do var y : int; print y; end for;",
+
+                /* runtime errors */
+                "var x : int; print 1; print x;",
+                "var x : int; var y : int; print x + y;",
+                "var x : int; var y : int; print x + (y + 1);",
+                "var x : int; var y : int; print x - (y + 1);",
+                "var x : int; print x + (1 / 0);",
+                "var x : int; print x / (1 / 0);",
+                "var x : int := 0; var s : string; print (1 / x) = 0;",
+                "var s : string; var t : string; print s + (t + \"a\");",
+                "var s : string; var t : string; print s = (t + \"a\");",
+                "var b : bool; print b & (1 < 2);",
+                "var b : bool; var c : bool; print b & !c;",
+                "print 1; assert (1 = 2);",
+                "var b : bool; read b;",
+                "var i : int; var n : int := 0; for i in 1..5 do n := n + i; print n / (3 - i); end for;",
+                "var i : int; for i in 1..5 do print i; assert (i < 4); end for;",
+                "var i : int; var j : int; var x : int;\n" +
+                        "for i in 1..3 do for j in 1..3 do print j; end for; x := x + 1; end for;",
+
+                /* statements before a syntax error run */
+                "print 1; print 2; end"));
+
+        /* more variables than a byte can index */
+        StringBuilder program = new StringBuilder("var i : int;\n");
+        for (int i = 0; i < 300; i++)
+            program.append("var x").append(i).append(" : int").append(i % 2 == 0 ? " := " + i : "").append(";\n");
+        program.append("for i in 1..2 do x299 := x298 + i; print x299; end for; print x1;");
+        programs.add(program.toString());
+        return programs;
+    }
+
+    /**
+     * What running a program printed, followed by "ok" or the error it
+     * failed with.
+     */
+    public static String outcome(Consumer<InputOutput> run) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String result = "ok";
+        try {
+            run.accept(new InputOutput(new PrintStream(output)));
+        } catch (RuntimeException e) {
+            result = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } catch (ArithmeticException e) {
+            /* the message is left out once HotSpot throws a preallocated
+             * exception from compiled code */
+            result = e.getClass().getSimpleName();
+        }
+        return output + " | " + result;
+    }
+
+    public static String outcome(String program, Engine engine) {
+        return outcome(io -> new Executor(program, engine).execute(io));
+    }
+
+    /**
+     * Run a program like {@link Executor} does, with what the given function
+     * prepares from the checked tree and its slot count.
+     */
+    public static void execute(String program, BiFunction<Block, Integer, Executable> prepare, InputOutput io) {
+        Parser parser = new Parser(new TokenQueue(program));
+        Block block = parser.parseProgram();
+        TypeChecker checker = new TypeChecker();
+        checker.check(block);
+        Context context = new Context(io);
+        context.allocateSlots(checker.getSlotCount());
+        prepare.apply(block, checker.getSlotCount()).execute(context);
+        parser.parseEnd();
+    }
+
+    @Test
+    public void programsRunAsOnTheTree() {
+        for (String program : programs())
+            assertEquals(program, outcome(program, Engine.TREE), outcome(program, engine));
+    }
+
+    @Test
+    public void compiledProgramRunsManyTimes() {
+        Program program = Executor.compile("var i : int; var n : int := 0;\n" +
+                "for i in 1..10 do var x : int := i; n := n + x; end for; print n;", engine);
+        for (int i = 0; i < 3; i++)
+            assertEquals("55 | ok", outcome(program::run));
+    }
+}
@@ -1,81 +1,97 @@
 package fi.jgke.miniplc.samples;
 
 import fi.jgke.miniplc.exception.*;
+import fi.jgke.miniplc.interpreter.Engine;
 import fi.jgke.miniplc.interpreter.Executor;
 import fi.jgke.miniplc.interpreter.InputOutput;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import static org.mockito.Mockito.when;
 
+@RunWith(Parameterized.class)
 public class Errors {
+    private final Engine engine;
+
     @Mock
     private
     InputOutput inputOutput;
 
+    public Errors(Engine engine) {
+        this.engine = engine;
+    }
+
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
     }
 
+    @Parameters(name = "{0}")
+    public static Engine[] engines() {
+        return Engine.values();
+    }
+
     @Test(expected = AssertionFailureException.class)
     public void assertion() {
-        new Executor("assert(false);").execute(inputOutput);
+        new Executor("assert(false);", engine).execute(inputOutput);
     }
 
     @Test(expected = EndOfInputException.class)
     public void endOfInput() {
-        new Executor(".").execute(inputOutput);
+        new Executor(".", engine).execute(inputOutput);
     }
 
     @Test(expected = IntegerParseError.class)
     public void parseError() {
         String sample = "var n : int; read n;";
         when(inputOutput.readLine()).thenReturn("foo");
-        new Executor(sample).execute(inputOutput);
+        new Executor(sample, engine).execute(inputOutput);
     }
 
     @Test(expected = OperationNotSupportedException.class)
     public void invalidOperation() {
-        new Executor("var a : int := (5 & 5);").execute(inputOutput);
+        new Executor("var a : int := (5 & 5);", engine).execute(inputOutput);
     }
 
     @Test(expected = TypeException.class)
     public void typeError() {
-        new Executor("var a : int := true;").execute(inputOutput);
+        new Executor("var a : int := true;", engine).execute(inputOutput);
     }
 
     @Test(expected = UndefinedVariableException.class)
     public void undefinedVariable() {
-        new Executor("a := 1;").execute(inputOutput);
+        new Executor("a := 1;", engine).execute(inputOutput);
     }
 
     @Test(expected = UnexpectedCharacterException.class)
     public void unexpectedCharacter() {
-        new Executor(".1").execute(inputOutput);
+        new Executor(".1", engine).execute(inputOutput);
     }
 
     @Test(expected = UnexpectedTokenException.class)
     public void unexpectedToken() {
-        new Executor("var a : int;;").execute(inputOutput);
+        new Executor("var a : int;;", engine).execute(inputOutput);
     }
 
     @Test(expected = UninitializedVariableException.class)
     public void uninitializedVariable() {
-        new Executor("var a : int; print a;").execute(inputOutput);
+        new Executor("var a : int; print a;", engine).execute(inputOutput);
     }
 
     @Test(expected = UnsupportedInputException.class)
     public void unsupportedInput() {
         String sample = "var n : bool; read n;";
-        new Executor(sample).execute(inputOutput);
+        new Executor(sample, engine).execute(inputOutput);
     }
 
     @Test(expected = VariableAlreadyDefinedException.class)
     public void duplicateVariables() {
-        new Executor("var a : int; var a : int;").execute(inputOutput);
+        new Executor("var a : int; var a : int;", engine).execute(inputOutput);
     }
 
     @Test(expected = UndefinedVariableException.class)
@@ -86,7 +102,7 @@ public class Errors {
                 "         var x : int := i;\n" +
                 "     end for;\n" +
                 "     print x;\n" +
-                "").execute(inputOutput);
+                "", engine).execute(inputOutput);
     }
 
     @Test
@@ -98,6 +114,6 @@ public class Errors {
                 "         print(x);\n" +
                 "     end for;\n" +
                 "     print i;\n" +
-                "").execute(inputOutput);
+                "", engine).execute(inputOutput);
     }
 }
@@ -16,33 +16,49 @@
 package fi.jgke.miniplc.samples;
 
 import fi.jgke.miniplc.exception.RuntimeException;
+import fi.jgke.miniplc.interpreter.Engine;
 import fi.jgke.miniplc.interpreter.Executor;
 import fi.jgke.miniplc.interpreter.InputOutput;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import static org.mockito.Mockito.*;
 
+@RunWith(Parameterized.class)
 public class Examples {
+    private final Engine engine;
+
     @Mock
     private
     InputOutput inputOutput;
 
+    public Examples(Engine engine) {
+        this.engine = engine;
+    }
+
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
     }
 
+    @Parameters(name = "{0}")
+    public static Engine[] engines() {
+        return Engine.values();
+    }
+
     @Test
     public void example1() throws RuntimeException {
         String sample = "" +
                 "var X : int := 4 + (6 * 2);\n" +
                 "print X;";
 
-        Executor executor = new Executor(sample);
+        Executor executor = new Executor(sample, engine);
         executor.execute(inputOutput);
 
         verify(inputOutput).print(16);
@@ -64,7 +80,7 @@ public class Examples {
                 "assert (x = nTimes);\n";
 
         when(inputOutput.readLine()).thenReturn("3");
-        Executor executor = new Executor(sample);
+        Executor executor = new Executor(sample, engine);
         executor.execute(inputOutput);
 
         InOrder inOrder = inOrder(inputOutput);
@@ -92,7 +108,7 @@ public class Examples {
                 "     print \"The result is: \";\n" +
                 "     print v;";
         when(inputOutput.readLine()).thenReturn("5");
-        Executor executor = new Executor(sample);
+        Executor executor = new Executor(sample, engine);
         executor.execute(inputOutput);
 
         InOrder inOrder = inOrder(inputOutput);
@@ -107,7 +123,7 @@ public class Examples {
                 "read n;\n" +
                 "print n;";
         when(inputOutput.readLine()).thenReturn("string");
-        new Executor(sample).execute(inputOutput);
+        new Executor(sample, engine).execute(inputOutput);
         verify(inputOutput).print("string");
     }
 }
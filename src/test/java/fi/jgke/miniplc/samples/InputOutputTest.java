@@ -15,33 +15,49 @@
  */
 package fi.jgke.miniplc.samples;
 
+import fi.jgke.miniplc.interpreter.Engine;
 import fi.jgke.miniplc.interpreter.Executor;
 import fi.jgke.miniplc.interpreter.InputOutput;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+@RunWith(Parameterized.class)
 public class InputOutputTest {
+    private final Engine engine;
+
     @Mock
     private
     InputOutput inputOutput;
 
+    public InputOutputTest(Engine engine) {
+        this.engine = engine;
+    }
+
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
     }
 
+    @Parameters(name = "{0}")
+    public static Engine[] engines() {
+        return Engine.values();
+    }
+
     @Test
     public void strings() {
         String sample = "var n : string := \"foo\" + \"bar\";\n" +
                 "read n;\n" +
                 "print n;";
         when(inputOutput.readLine()).thenReturn("string");
-        new Executor(sample).execute(inputOutput);
+        new Executor(sample, engine).execute(inputOutput);
         verify(inputOutput).print("string");
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.specializing;
+
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Parser;
+import fi.jgke.miniplc.ast.TypeChecker;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.InputOutput;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static fi.jgke.miniplc.specializing.StatementNodes.*;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NodeBuilderTest {
+    private static BlockNode build(String program) {
+        Block block = new Parser(new TokenQueue(program)).parseProgram();
+        TypeChecker checker = new TypeChecker();
+        checker.check(block);
+        return (BlockNode) NodeBuilder.build(block);
+    }
+
+    private static void execute(BlockNode program) {
+        Context context = new Context(new InputOutput(new PrintStream(new ByteArrayOutputStream())));
+        context.allocateSlots(8);
+        program.execute(context);
+    }
+
+    @Test
+    public void expressionsAreSpecializedWhenFirstEvaluated() {
+        BlockNode program = build("var i : int; var n : int := 0;\n" +
+                "for i in 1..3 do n := n + i; end for;\n" +
+                "for i in 3..1 do n := n - i; end for;");
+        ForNode first = (ForNode) program.statements[2];
+        ForNode second = (ForNode) program.statements[3];
+        assertTrue(first.start instanceof UninitializedNode);
+
+        execute(program);
+        assertTrue(first.start instanceof IntNodes.IntConstantNode);
+        SetIntNode add = (SetIntNode) first.body.statements[0];
+        assertTrue(add.value instanceof IntNodes.IntAddNode);
+        /* the body of the second loop never runs */
+        SetIntNode subtract = (SetIntNode) second.body.statements[0];
+        assertTrue(subtract.value instanceof UninitializedNode);
+
+        ExpressionNode specialized = add.value;
+        execute(program);
+        assertSame(specialized, add.value);
+    }
+}
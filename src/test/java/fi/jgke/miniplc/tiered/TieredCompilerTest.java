@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tiered;
+
+import fi.jgke.miniplc.ast.Block;
+import fi.jgke.miniplc.ast.Parser;
+import fi.jgke.miniplc.ast.TypeChecker;
+import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.Engine;
+import fi.jgke.miniplc.interpreter.Executable;
+import fi.jgke.miniplc.samples.DifferentialTest;
+import fi.jgke.miniplc.tokenizer.TokenQueue;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static fi.jgke.miniplc.samples.DifferentialTest.outcome;
+import static org.junit.Assert.assertEquals;
+
+public class TieredCompilerTest {
+    private static String run(String program, Tiering tiering) {
+        return outcome(io -> DifferentialTest.execute(program,
+                (block, slotCount) -> TieredCompiler.compile(block, slotCount, tiering), io));
+    }
+
+    /* Loops are compiled in the calling thread, so the interpreter moves
+     * into them right after the given number of iterations */
+    @Test
+    public void loopsMoveIntoCompiledCode() {
+        for (int threshold = 1; threshold <= 4; threshold++) {
+            for (String program : DifferentialTest.programs())
+                assertEquals(program, outcome(program, Engine.TREE),
+                        run(program, new Tiering(threshold, Runnable::run)));
+        }
+    }
+
+    @Test
+    public void transitionsAreCounted() {
+        Tiering tiering = new Tiering(5, Runnable::run);
+        assertEquals("30 | ok", run("var i : int; var j : int; var n : int := 0;\n" +
+                "for i in 1..3 do for j in 1..4 do n := n + j; end for; end for; print n;", tiering));
+        /* the inner loop gets hot in its second run, and the outer one not
+         * at all */
+        assertEquals(5, tiering.getLoopThreshold());
+        assertEquals(1, tiering.getCompiledLoops());
+        assertEquals(0, tiering.getFailedLoops());
+        assertEquals(1, tiering.getOnStackReplacements());
+        assertEquals(1, tiering.getCompiledEntries());
+    }
+
+    @Test
+    public void hugeLoopsStayInterpreted() {
+        StringBuilder program = new StringBuilder("var i : int; var n : int := 0; for i in 1..10 do\n");
+        for (int i = 0; i < 1000; i++)
+            program.append("n := n + (i * ").append(i).append(");\n");
+        program.append("end for; print n;");
+        Tiering tiering = new Tiering(1, Runnable::run);
+        assertEquals(outcome(program.toString(), Engine.TREE), run(program.toString(), tiering));
+        assertEquals(0, tiering.getCompiledLoops());
+        assertEquals(1, tiering.getFailedLoops());
+    }
+
+    /* too few slots for the variables make the class compiler throw */
+    @Test
+    public void loopsWhichFailToCompileStayInterpreted() {
+        String program = "var i : int; var j : int; var n : int := 0;\n" +
+                "for i in 1..3 do for j in 1..4 do n := n + j; end for; end for; print n;";
+        Tiering tiering = new Tiering(1, Runnable::run);
+        assertEquals(outcome(program, Engine.TREE), outcome(io -> DifferentialTest.execute(program,
+                (block, slotCount) -> TieredCompiler.compile(block, 0, tiering), io)));
+        /* each loop is tried once */
+        assertEquals(0, tiering.getCompiledLoops());
+        assertEquals(2, tiering.getFailedLoops());
+    }
+
+    @Test
+    public void loopsAreCompiledInTheBackground() throws InterruptedException {
+        ExecutorService compiler = Executors.newSingleThreadExecutor();
+        Tiering tiering = new Tiering(100, compiler);
+        String program = "var i : int; var j : int; var n : int := 0;\n" +
+                "for i in 1..300 do for j in 1..300 do n := n + ((i * j) / 7); end for; end for; print n;";
+        TypeChecker checker = new TypeChecker();
+        Block block = new Parser(new TokenQueue(program)).parseProgram();
+        checker.check(block);
+        Executable executable = TieredCompiler.compile(block, checker.getSlotCount(), tiering);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(outcome(program, Engine.TREE), outcome(io -> {
+                Context context = new Context(io);
+                context.allocateSlots(checker.getSlotCount());
+                executable.execute(context);
+            }));
+        }
+        compiler.shutdown();
+        compiler.awaitTermination(1, TimeUnit.MINUTES);
+        assertEquals(2, tiering.getCompiledLoops());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void thresholdMustBePositive() {
+        new Tiering(0, Runnable::run);
+    }
+}
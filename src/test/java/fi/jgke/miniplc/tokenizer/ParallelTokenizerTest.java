@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Jaakko Hannikainen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package fi.jgke.miniplc.tokenizer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelTokenizerTest {
+    /* Pieces of source, some of which only make sense next to others */
+    private static final String[] fragments = {
+            "var", "x", "foo1", "bar", ":", ":=", "=", ";", "(", ")", "+", "..", "123", "true", "int",
+            " ", " ", "\n", "\n", "\t", "/", "*", "//", "/*", "*/", "\"", "\\", "\\n", "\\\"", "\\\n",
+            "\"a\\\"b\"", "\"line\nbreak\"", "\"esc\\\nnewline\"", "/* \" */", "// \" /*\n", "\"/*\"", "\"//\""
+    };
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private static String generate(Random random, boolean wellFormed) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(300);
+        for (int i = 0; i < length; i++) {
+            String fragment = fragments[random.nextInt(fragments.length)];
+            if (wellFormed && (fragment.contains("\\") || fragment.equals("\"") || fragment.equals("/*")))
+                fragment = "\n";
+            builder.append(fragment);
+        }
+        return builder.toString();
+    }
+
+    private static String describe(Throwable error) {
+        return error.getClass().getName() + ": " + error.getMessage();
+    }
+
+    private void assertSameTokens(String input, int minimumChunk) {
+        List<Token> expected = new ArrayList<>();
+        SymbolTable expectedSymbols = null;
+        String expectedError = null;
+        try {
+            Tokenizer tokenizer = new Tokenizer();
+            expected.addAll(tokenizer.tokenize(input));
+            expectedSymbols = tokenizer.getSymbols();
+        } catch (RuntimeException e) {
+            expectedError = describe(e);
+        }
+
+        SymbolTable symbols = new SymbolTable();
+        TokenBuffer actual;
+        try {
+            actual = ParallelTokenizer.tokenize(input.toCharArray(), symbols, pool, minimumChunk);
+        } catch (RuntimeException e) {
+            assertEquals(input, expectedError, describe(e));
+            return;
+        }
+        assertNull(input, expectedError);
+
+        assertEquals(input, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Token token = expected.get(i);
+            Token other = actual.getToken(i);
+            assertEquals(input, token.getValue(), other.getValue());
+            assertEquals(input, token.getContent(), other.getContent());
+            assertEquals(input, token.getLineNumber(), other.getLineNumber());
+            assertEquals(input, token.getColumn(), other.getColumn());
+            assertEquals(input, token.getSymbol(), other.getSymbol());
+            if (other.getSymbol() >= 0)
+                assertSame(input, symbols.getName(other.getSymbol()), other.getContent());
+        }
+        assertEquals(input, expectedSymbols.size(), symbols.size());
+    }
+
+    @Test
+    public void testMatchesSequentialOnGeneratedCorpus() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            String input = generate(random, i % 2 == 0);
+            assertSameTokens(input, 1 + random.nextInt(32));
+        }
+    }
+
+    @Test
+    public void testLargeInput() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            builder.append("var name").append(i % 500).append(" : string := \"a\\\nb\";\n");
+            builder.append("/* comment\n with lines */ print name").append(i % 300).append(";\n");
+        }
+        String input = builder.toString();
+
+        assertSameTokens(input, ParallelTokenizer.MINIMUM_CHUNK);
+
+        Queue<Token> expected = new Tokenizer().tokenize(input);
+        TokenQueue tokenQueue = new TokenQueue(input, pool);
+        while (!expected.isEmpty())
+            assertEquals(expected.remove().getContent(), tokenQueue.remove().getContent());
+        assertTrue(tokenQueue.isEmpty());
+    }
+
+    @Test
+    public void testFirstErrorIsReported() {
+        String input = "print 1;\nprint 2;\n_\nprint 3;\n\"unterminated\n";
+        for (int minimumChunk = 1; minimumChunk < 8; minimumChunk++)
+            assertSameTokens(input, minimumChunk);
+    }
+}
@@ -20,8 +20,19 @@ import fi.jgke.miniplc.exception.EndOfInputException;
 import fi.jgke.miniplc.exception.UnexpectedCharacterException;
 import org.junit.Test;
 
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -100,4 +111,218 @@ public class TokenQueueTest {
     public void testBadNumber() {
         new TokenQueue("5a");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testStringEscapes() {
+        TokenQueue tokenQueue = new TokenQueue("\"a\\tb\\\"c\\\\d\\ne\"");
+        assertEquals("a\tb\"c\\d\ne", tokenQueue.remove().getString());
+    }
+
+    @Test
+    public void testLineNumbers() {
+        TokenQueue tokenQueue = new TokenQueue("a\n/* b\n\n */ c // d\n\"e\nf\" g");
+        assertEquals(1, tokenQueue.remove().getLineNumber());
+        assertEquals(4, tokenQueue.remove().getLineNumber());
+        assertEquals(6, tokenQueue.remove().getLineNumber());
+        assertEquals(6, tokenQueue.remove().getLineNumber());
+    }
+
+    @Test
+    public void testIntegerLimits() {
+        assertEquals(Integer.MAX_VALUE, new TokenQueue("2147483647").remove().getContent());
+        assertEquals(7, new TokenQueue("007").remove().getContent());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testIntegerOverflow() {
+        new TokenQueue("2147483648");
+    }
+
+    @Test(expected = EndOfInputException.class)
+    public void testUnterminatedComment() {
+        new TokenQueue("/* foo");
+    }
+
+    @Test
+    public void testStreamingMatchesEager() {
+        String program = "var s : string := \"a \\\"long\\\" literal\";\n" +
+                "/* a\n comment */ for i in 0..2147483647 do\n" +
+                "    print s; // trailing\n" +
+                "end for;";
+        for (int bufferSize = 1; bufferSize < 16; bufferSize++) {
+            TokenQueue eager = new TokenQueue(program);
+            TokenQueue streaming = new TokenQueue(new Tokenizer(new ReaderSource(new StringReader(program), bufferSize)));
+            while (!eager.isEmpty()) {
+                Token expected = eager.remove();
+                Token actual = streaming.remove();
+                assertEquals(expected.getValue(), actual.getValue());
+                assertEquals(expected.getContent(), actual.getContent());
+                assertEquals(expected.getLineNumber(), actual.getLineNumber());
+                assertEquals(expected.getColumn(), actual.getColumn());
+            }
+            assertTrue(streaming.isEmpty());
+        }
+    }
+
+    @Test
+    public void testStreamingIsLazy() {
+        TokenQueue tokenQueue = new TokenQueue(new StringReader("print 1; _"));
+        assertEquals(TokenValue.PRINT, tokenQueue.remove().getValue());
+        assertEquals(TokenValue.INT_CONST, tokenQueue.element().getValue());
+        assertEquals(TokenValue.INT_CONST, tokenQueue.remove().getValue());
+        assertEquals(TokenValue.SEMICOLON, tokenQueue.remove().getValue());
+        try {
+            tokenQueue.element();
+            fail();
+        } catch (UnexpectedCharacterException ignored) {
+        }
+    }
+
+    @Test
+    public void testColumns() {
+        TokenQueue tokenQueue = new TokenQueue("var x : int;\n  /* a\n */ print \"a\nb\" ;\n// c\n\tx");
+        int[][] positions = {{1, 1}, {1, 5}, {1, 7}, {1, 9}, {1, 12}, {3, 5}, {4, 11}, {4, 4}, {6, 2}, {6, 3}};
+        for (int[] position : positions) {
+            Token token = tokenQueue.remove();
+            assertEquals(position[0], token.getLineNumber());
+            assertEquals(position[1], token.getColumn());
+        }
+        assertTrue(tokenQueue.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentTokenizers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                int lines = i + 1;
+                results.add(executor.submit(() -> {
+                    StringBuilder script = new StringBuilder();
+                    for (int line = 1; line <= lines * 100; line++)
+                        script.append("print ").append(line).append(";\n");
+                    int last = 0;
+                    for (int round = 0; round < 10; round++) {
+                        TokenQueue tokenQueue = new TokenQueue(script.toString());
+                        while (tokenQueue.element().getValue() != TokenValue.EOS) {
+                            Token print = tokenQueue.remove();
+                            Token value = tokenQueue.remove();
+                            tokenQueue.remove();
+                            assertEquals(value.getContent(), print.getLineNumber());
+                            assertEquals(value.getContent(), value.getLineNumber());
+                            last = print.getLineNumber();
+                        }
+                    }
+                    return last;
+                }));
+            }
+            for (int i = 0; i < results.size(); i++)
+                assertEquals((i + 1) * 100, (int) results.get(i).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPackedMatchesTokens() {
+        String program = "var x : int := 2147483647;\nvar s : string := \"a\\\"b\";\n" +
+                "for i in 0..x do print s; read x; assert (!false & true); end for;\n" +
+                "var b : bool := (x - 1) * 2 / 3 < x = true;";
+        Queue<Token> expected = new Tokenizer().tokenize(program);
+        TokenBuffer buffer = new Tokenizer().tokenizePacked(program);
+        assertEquals(expected.size(), buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            Token token = expected.remove();
+            Token packed = buffer.getToken(i);
+            assertEquals(token.getValue(), buffer.getValue(i));
+            assertEquals(token.getLineNumber(), buffer.getLineNumber(i));
+            assertEquals(token.getColumn(), buffer.getColumn(i));
+            assertEquals(token.getValue(), packed.getValue());
+            assertEquals(token.getContent(), packed.getContent());
+            assertEquals(token.getSymbol(), packed.getSymbol());
+            assertEquals(token.getLineNumber(), packed.getLineNumber());
+            assertEquals(token.getColumn(), packed.getColumn());
+        }
+        assertEquals(Integer.MAX_VALUE, buffer.getInt(5));
+        assertEquals("a\"b", buffer.getString(12));
+        assertEquals("x", buffer.getString(1));
+        assertEquals(buffer.getSymbol(1), buffer.getSymbol(buffer.size() - 5));
+        assertEquals(TokenValue.IDENTIFIER, buffer.getValue(buffer.size() - 5));
+    }
+
+    @Test
+    public void testIdentifiersAreInterned() {
+        TokenQueue tokenQueue = new TokenQueue("foo := bar; bar := foo1; foo := foo;");
+        Token foo = tokenQueue.remove();
+        tokenQueue.remove();
+        Token bar = tokenQueue.remove();
+        tokenQueue.remove();
+        Token bar2 = tokenQueue.remove();
+        tokenQueue.remove();
+        Token foo1 = tokenQueue.remove();
+        tokenQueue.remove();
+        Token foo2 = tokenQueue.remove();
+        tokenQueue.remove();
+        Token foo3 = tokenQueue.remove();
+
+        assertEquals(0, foo.getSymbol());
+        assertEquals(1, bar.getSymbol());
+        assertEquals(2, foo1.getSymbol());
+        assertEquals(bar.getSymbol(), bar2.getSymbol());
+        assertEquals(foo.getSymbol(), foo2.getSymbol());
+        assertEquals(foo.getSymbol(), foo3.getSymbol());
+        assertSame(foo.getString(), foo3.getString());
+        assertEquals(3, tokenQueue.getSymbols().size());
+        assertEquals("foo1", tokenQueue.getSymbols().getName(foo1.getSymbol()));
+        assertEquals(-1, tokenQueue.remove().getSymbol());
+    }
+
+    @Test
+    public void testSymbolTableGrows() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, symbols.intern("v" + i));
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, symbols.intern("v" + i));
+        assertEquals(1000, symbols.size());
+    }
+
+    @Test
+    public void testSymbolTableFindDoesNotIntern() {
+        SymbolTable symbols = new SymbolTable();
+        assertEquals(0, symbols.intern("a"));
+        assertEquals(0, symbols.find("a"));
+        assertEquals(-1, symbols.find("b"));
+        assertEquals(1, symbols.size());
+    }
+
+    @Test
+    public void testMappedFileMatchesEager() throws Exception {
+        String program = "var s\u00e4 : string := \"\u65e5\u672c \\\"\ud83d\ude00\\\" \\\ud83d\ude00\";\n" +
+                "/* \u20ac\n */ for i in 0..10 do\n" +
+                "    print s\u00e4; // \ud801\udc00\n" +
+                "end for;";
+        Path path = Files.createTempFile(null, null);
+        try {
+            Files.write(path, program.getBytes(StandardCharsets.UTF_8));
+            for (int windowSize = 1; windowSize < 16; windowSize++) {
+                try (FileChannel channel = FileChannel.open(path)) {
+                    TokenQueue eager = new TokenQueue(program);
+                    TokenQueue mapped = new TokenQueue(new Tokenizer(new MappedFileSource(channel, windowSize)));
+                    while (!eager.isEmpty()) {
+                        Token expected = eager.remove();
+                        Token actual = mapped.remove();
+                        assertEquals(expected.getValue(), actual.getValue());
+                        assertEquals(expected.getContent(), actual.getContent());
+                        assertEquals(expected.getLineNumber(), actual.getLineNumber());
+                        assertEquals(expected.getColumn(), actual.getColumn());
+                assertEquals(expected.getColumn(), actual.getColumn());
+                    }
+                    assertTrue(mapped.isEmpty());
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
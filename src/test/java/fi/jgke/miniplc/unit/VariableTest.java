@@ -19,9 +19,11 @@ package fi.jgke.miniplc.unit;
 import fi.jgke.miniplc.exception.TypeException;
 import fi.jgke.miniplc.exception.UndefinedVariableException;
 import fi.jgke.miniplc.interpreter.Context;
+import fi.jgke.miniplc.interpreter.FrameStack;
 import fi.jgke.miniplc.interpreter.InputOutput;
 import fi.jgke.miniplc.interpreter.Variable;
 import fi.jgke.miniplc.interpreter.VariableType;
+import fi.jgke.miniplc.tokenizer.SymbolTable;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Test;
@@ -29,9 +31,11 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class VariableTest {
 
@@ -73,7 +77,26 @@ public class VariableTest {
     @Test(expected = UndefinedVariableException.class)
     public void updateNonexistentVariableToContext() throws Exception {
         Variable a = new Variable("foo", 1, VariableType.BOOL, true);
-        Context context = new Context(InputOutput.getInstance());
-        context.updateVariable(a);
+        FrameStack frames = new FrameStack(new Context(InputOutput.getInstance()));
+        frames.updateVariable(a);
+    }
+
+    @Test
+    public void lookingUpAnUndefinedNameDoesNotInternIt() {
+        SymbolTable symbols = new SymbolTable();
+        FrameStack frames = new FrameStack(new Context(InputOutput.getInstance()), symbols);
+        for (String name : new String[]{"foo", "bar"}) {
+            try {
+                frames.getVariable(name, 1);
+                fail();
+            } catch (UndefinedVariableException ignored) {
+            }
+        }
+        try {
+            frames.updateVariable(new Variable("foo", 1, VariableType.BOOL, true));
+            fail();
+        } catch (UndefinedVariableException ignored) {
+        }
+        assertEquals(0, symbols.size());
     }
 }
\ No newline at end of file